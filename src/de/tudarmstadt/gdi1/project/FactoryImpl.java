@@ -5,9 +5,12 @@ import de.tudarmstadt.gdi1.project.analysis.ValidateDecryptionOracle;
 import de.tudarmstadt.gdi1.project.analysis.ValidateDecryptionOracleImpl;
 import de.tudarmstadt.gdi1.project.analysis.caeser.CaesarCryptanalysis;
 import de.tudarmstadt.gdi1.project.analysis.caeser.CaesarCryptanalysisImpl;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaCryptanalysis;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaCryptanalysisImpl;
 import de.tudarmstadt.gdi1.project.analysis.monoalphabetic.*;
 import de.tudarmstadt.gdi1.project.analysis.vigenere.VigenereCryptanalysisImpl;
 import de.tudarmstadt.gdi1.project.cipher.enigma.*;
+import de.tudarmstadt.gdi1.project.cipher.substitution.ComposedCipherImpl;
 import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipher;
 import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipherImpl;
 import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.*;
@@ -15,6 +18,7 @@ import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.Polyalphab
 import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.PolyalphabeticCipherImpl;
 import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.Vigenere;
 import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import de.tudarmstadt.gdi1.project.utils.CipherCache;
 import de.tudarmstadt.gdi1.project.utils.Utils;
 import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
 
@@ -25,6 +29,36 @@ import java.util.List;
  * factory
  */
 public class FactoryImpl implements Factory {
+
+	/**
+	 * cache for ciphers with a key, or null if every call creates a new cipher
+	 */
+	protected final CipherCache cipherCache;
+
+	/**
+	 * Creates a factory that creates a new cipher on every call
+	 */
+	public FactoryImpl() {
+		this(null);
+	}
+
+	/**
+	 * Creates a factory that returns the cached cipher if a caesar, keyword or vigenere cipher with the same key and
+	 * alphabet was created before
+	 *
+	 * @param cipherCache the cache, or null to disable caching
+	 */
+	public FactoryImpl(CipherCache cipherCache) {
+		this.cipherCache = cipherCache;
+	}
+
+	/**
+	 * @return the cache for ciphers with a key, or null if caching is disabled
+	 */
+	public CipherCache getCipherCache() {
+		return cipherCache;
+	}
+
 	/**
 	 * Constructs a {@link de.tudarmstadt.gdi1.project.alphabet.Distribution} from the given text for all ngrams of
 	 * size 1 to ngramsize. Only characters available in the alphabet should be
@@ -90,7 +124,15 @@ public class FactoryImpl implements Factory {
 	 */
 	@Override
 	public Caesar getCaesarInstance(int key, Alphabet alphabet) {
-		return new CaesarImpl(key, alphabet);
+		if(cipherCache == null) {
+			return new CaesarImpl(key, alphabet);
+		}
+		Caesar ret = (Caesar) cipherCache.get(CaesarImpl.class, String.valueOf(key), alphabet);
+		if(ret == null) {
+			ret = new CaesarImpl(key, alphabet);
+			cipherCache.put(CaesarImpl.class, String.valueOf(key), alphabet, ret);
+		}
+		return ret;
 	}
 
 	/**
@@ -103,7 +145,15 @@ public class FactoryImpl implements Factory {
 	 */
 	@Override
 	public KeywordMonoalphabeticCipher getKeywordMonoalphabeticCipherInstance(String key, Alphabet alphabet) {
-		return new KeywordMonoalphabeticCipherImpl(key, alphabet);
+		if(cipherCache == null) {
+			return new KeywordMonoalphabeticCipherImpl(key, alphabet);
+		}
+		KeywordMonoalphabeticCipher ret = (KeywordMonoalphabeticCipher) cipherCache.get(KeywordMonoalphabeticCipherImpl.class, key, alphabet);
+		if(ret == null) {
+			ret = new KeywordMonoalphabeticCipherImpl(key, alphabet);
+			cipherCache.put(KeywordMonoalphabeticCipherImpl.class, key, alphabet, ret);
+		}
+		return ret;
 	}
 
 	/**
@@ -128,7 +178,26 @@ public class FactoryImpl implements Factory {
 	 */
 	@Override
 	public Vigenere getVigenereCipherInstance(String key, Alphabet alphabet) {
-		return new VigenereImpl(key, alphabet);
+		if(cipherCache == null) {
+			return new VigenereImpl(key, alphabet);
+		}
+		Vigenere ret = (Vigenere) cipherCache.get(VigenereImpl.class, key, alphabet);
+		if(ret == null) {
+			ret = new VigenereImpl(key, alphabet);
+			cipherCache.put(VigenereImpl.class, key, alphabet, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Constructs a cipher that applies the given ciphers one after another, fused into a single table if possible
+	 * (see {@link de.tudarmstadt.gdi1.project.cipher.substitution.ComposedCipherImpl#compose})
+	 *
+	 * @param ciphers the ciphers in the order they encrypt
+	 * @return
+	 */
+	public SubstitutionCipher getComposedCipherInstance(SubstitutionCipher... ciphers) {
+		return ComposedCipherImpl.compose(ciphers);
 	}
 
 	/**
@@ -182,6 +251,15 @@ public class FactoryImpl implements Factory {
 		return new VigenereCryptanalysisImpl();
 	}
 
+	/**
+	 * returns an instance of {@link de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaCryptanalysis}
+	 *
+	 * @return the enigma cryptanalysis
+	 */
+	public EnigmaCryptanalysis getEnigmaCryptanalysisInstance() {
+		return new EnigmaCryptanalysisImpl();
+	}
+
 	/**
 	 * returns an instance of {@link de.tudarmstadt.gdi1.project.utils.Utils}.
 	 *
@@ -5,6 +5,7 @@ import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -41,9 +42,11 @@ public class AlphabetImpl implements Alphabet {
 	 * @param characters Array of characters that make up the alphabet
 	 */
 	public AlphabetImpl(Character[] characters) {
-		this();
+		this.characters = new ArrayList<Character>(characters.length);
+		// remember the characters we've seen in a set, so finding duplicates doesn't need to search the whole list
+		HashSet<Character> seen = new HashSet<Character>(characters.length * 2);
 		for(char c : characters) {
-			if(this.characters.contains(c)) {
+			if(!seen.add(c)) {
 				throw new InvalidCharacterException("The character '" + c + "' exists twice!");
 			}
 			this.characters.add(c);
@@ -177,8 +180,12 @@ public class AlphabetImpl implements Alphabet {
 	 */
 	@Override
 	public char[] asCharArray() {
-		// convert the characters array list to a Character array and convert that to a char array
-		return ((new UtilsImpl()).toCharArray(this.asCharacterArray()));
+		// copy the characters straight into a char array, without creating a Character array first
+		char[] ret = new char[characters.size()];
+		for(int i = 0; i < ret.length; i++) {
+			ret[i] = characters.get(i);
+		}
+		return ret;
 	}
 
 	/**
@@ -0,0 +1,41 @@
+package de.tudarmstadt.gdi1.project.alphabet;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An alphabet whose characters can't be changed through {@link #asCharacterList()} or its iterator, so one instance
+ * can be shared by everyone who needs an alphabet with these characters
+ */
+public class UnmodifiableAlphabet extends AlphabetImpl {
+
+	/**
+	 * Create an alphabet with characters from a string
+	 *
+	 * @param characters String containing the characters for the alphabet
+	 */
+	public UnmodifiableAlphabet(String characters) {
+		super(characters);
+	}
+
+	/**
+	 * Returns the underlying characters in correct order as a List of size {@link #size()}
+	 *
+	 * @return a list of the characters that can't be changed
+	 */
+	@Override
+	public List<Character> asCharacterList() {
+		return Collections.unmodifiableList(characters);
+	}
+
+	/**
+	 * Returns an iterator over the characters that can't remove them
+	 *
+	 * @return an Iterator.
+	 */
+	@Override
+	public Iterator<Character> iterator() {
+		return asCharacterList().iterator();
+	}
+}
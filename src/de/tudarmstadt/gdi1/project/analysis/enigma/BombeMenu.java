@@ -0,0 +1,168 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The menu of a crib at one position of the ciphertext, as used by the bombe: a graph with a node for every character
+ * and an edge between the plaintext and the ciphertext character at every position of the crib, labeled with the
+ * position. At position t the enigma is P S_t P, with P the pinboard and S_t the rest of the machine, so an edge
+ * (a, b, t) means P(b) = S_t(P(a)).
+ * <p/>
+ * The graph is split into its connected components, every component is tested starting at its character with the
+ * most edges.
+ */
+public class BombeMenu {
+
+	/**
+	 * the position of the crib in the ciphertext
+	 */
+	protected final int offset;
+
+	/**
+	 * the number of characters of the alphabet
+	 */
+	protected final int alphabetSize;
+
+	/**
+	 * edges[a] holds the edges of character a, as pairs of the other character and the position in the ciphertext
+	 */
+	protected final int[][] edges;
+
+	/**
+	 * the character every component is tested at, the largest component first
+	 */
+	protected final int[] testLetters;
+
+	/**
+	 * Builds the menu
+	 *
+	 * @param ciphertext   the ciphertext as indices in the alphabet
+	 * @param crib         the crib as indices in the alphabet
+	 * @param offset       the position of the crib in the ciphertext
+	 * @param alphabetSize the number of characters of the alphabet
+	 */
+	public BombeMenu(int[] ciphertext, int[] crib, int offset, int alphabetSize) {
+		this.offset = offset;
+		this.alphabetSize = alphabetSize;
+
+		// count the edges of every character first, so every list gets its exact size
+		int[] degree = new int[alphabetSize];
+		for(int i = 0; i < crib.length; i++) {
+			degree[crib[i]]++;
+			degree[ciphertext[offset + i]]++;
+		}
+		edges = new int[alphabetSize][];
+		for(int a = 0; a < alphabetSize; a++) {
+			edges[a] = new int[2 * degree[a]];
+			degree[a] = 0;
+		}
+		for(int i = 0; i < crib.length; i++) {
+			int a = crib[i];
+			int b = ciphertext[offset + i];
+			addEdge(a, b, offset + i, degree);
+			addEdge(b, a, offset + i, degree);
+		}
+
+		// find the components and the character with the most edges in each of them
+		int[] component = new int[alphabetSize];
+		List<int[]> found = new ArrayList<int[]>();
+		for(int a = 0; a < alphabetSize; a++) {
+			if(component[a] != 0 || edges[a].length == 0) {
+				continue;
+			}
+			int[] best = mark(a, found.size() + 1, component);
+			found.add(best);
+		}
+		// the largest component rules out the most settings, so it goes first
+		testLetters = new int[found.size()];
+		for(int i = 0; i < testLetters.length; i++) {
+			int max = i;
+			for(int k = i + 1; k < found.size(); k++) {
+				if(found.get(k)[1] > found.get(max)[1]) {
+					max = k;
+				}
+			}
+			int[] tmp = found.get(i);
+			found.set(i, found.get(max));
+			found.set(max, tmp);
+			testLetters[i] = found.get(i)[0];
+		}
+	}
+
+	/**
+	 * Finds the positions where the crib can be: the enigma never encrypts a character to itself, so the crib can't be
+	 * where one of its characters is at the same place in the ciphertext
+	 *
+	 * @param ciphertext the ciphertext as indices in the alphabet
+	 * @param crib       the crib as indices in the alphabet
+	 * @return the possible positions in ascending order
+	 */
+	public static List<Integer> possibleOffsets(int[] ciphertext, int[] crib) {
+		List<Integer> ret = new ArrayList<Integer>();
+		for(int offset = 0; offset + crib.length <= ciphertext.length; offset++) {
+			boolean possible = true;
+			for(int i = 0; i < crib.length && possible; i++) {
+				possible = crib[i] != ciphertext[offset + i];
+			}
+			if(possible) {
+				ret.add(offset);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the position of the crib in the ciphertext
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the character every component is tested at, the largest component first
+	 */
+	public int[] getTestLetters() {
+		return testLetters.clone();
+	}
+
+	/**
+	 * adds the edge from a to b at the given position
+	 */
+	private void addEdge(int a, int b, int position, int[] filled) {
+		edges[a][filled[a]++] = b;
+		edges[a][filled[a]++] = position;
+	}
+
+	/**
+	 * Marks the component of a character
+	 *
+	 * @param start     a character of the component
+	 * @param id        the number of the component, greater than 0
+	 * @param component receives the number of the component of every character
+	 * @return the character with the most edges and the number of edges of the component
+	 */
+	private int[] mark(int start, int id, int[] component) {
+		int[] stack = new int[alphabetSize];
+		int size = 0;
+		stack[size++] = start;
+		component[start] = id;
+		int best = start;
+		int edgeCount = 0;
+		while(size > 0) {
+			int a = stack[--size];
+			edgeCount += edges[a].length / 2;
+			if(edges[a].length > edges[best].length) {
+				best = a;
+			}
+			for(int e = 0; e < edges[a].length; e += 2) {
+				int b = edges[a][e];
+				if(component[b] == 0) {
+					component[b] = id;
+					stack[size++] = b;
+				}
+			}
+		}
+		return new int[]{best, edgeCount};
+	}
+}
@@ -0,0 +1,91 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A stop of the bombe: a setting of the rotors and a position of the crib for which a pinboard exists that agrees with
+ * the whole menu, together with the connections of the pinboard the bombe deduced
+ */
+public class BombeStop {
+
+	/**
+	 * the setting of the rotors
+	 */
+	protected final EnigmaSetting setting;
+
+	/**
+	 * the position of the crib in the ciphertext
+	 */
+	protected final int offset;
+
+	/**
+	 * the deduced connections of the pinboard, every connection in both directions. Characters connected to
+	 * themselves aren't plugged.
+	 */
+	protected final Map<Character, Character> plugs;
+
+	/**
+	 * Creates the stop
+	 *
+	 * @param setting the setting of the rotors
+	 * @param offset  the position of the crib in the ciphertext
+	 * @param plugs   the deduced connections of the pinboard
+	 */
+	public BombeStop(EnigmaSetting setting, int offset, Map<Character, Character> plugs) {
+		this.setting = setting;
+		this.offset = offset;
+		this.plugs = Collections.unmodifiableMap(new TreeMap<Character, Character>(plugs));
+	}
+
+	/**
+	 * @return the setting of the rotors
+	 */
+	public EnigmaSetting getSetting() {
+		return setting;
+	}
+
+	/**
+	 * @return the position of the crib in the ciphertext
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the deduced connections of the pinboard, every connection in both directions
+	 */
+	public Map<Character, Character> getPlugs() {
+		return plugs;
+	}
+
+	/**
+	 * Builds the output alphabet of a pinboard with the deduced connections. Characters the bombe didn't reach are
+	 * connected to themselves.
+	 *
+	 * @param alphabet the alphabet of the machine
+	 * @return the output alphabet of the pinboard
+	 */
+	public Alphabet getPinBoard(Alphabet alphabet) {
+		char[] ret = alphabet.asCharArray();
+		for(int i = 0; i < ret.length; i++) {
+			Character plug = plugs.get(ret[i]);
+			if(plug != null) {
+				ret[i] = plug;
+			}
+		}
+		return new AlphabetImpl(new String(ret));
+	}
+
+	/**
+	 * @return a string like "rotors [2, 0, 1] at [3, 25, 7] (score 0.0), crib at 10, plugs {a=b, b=a}"
+	 */
+	@Override
+	public String toString() {
+		return setting + ", crib at " + offset + ", plugs " + plugs;
+	}
+}
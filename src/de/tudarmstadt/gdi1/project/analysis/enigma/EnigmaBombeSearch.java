@@ -0,0 +1,376 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs the bombe over a range of an {@link EnigmaKeySpace}: for every setting and every menu it tests whether a
+ * pinboard exists that agrees with the menu.
+ * <p/>
+ * A test starts with a hypothesis P(x) = y for the test letter x of a component and follows the edges of the menu:
+ * from P(a) = u and the edge (a, b, t) follows P(b) = S_t(u), and as the pinboard only swaps pairs also P(u) = a.
+ * The hypothesis is wrong as soon as a character would be connected to two different ones. A setting stops the bombe
+ * if every component of the menu has a hypothesis that isn't wrong.
+ * <p/>
+ * The components are tested independently of each other, a hypothesis that survives in one component says nothing
+ * about the others. Only if exactly one hypothesis of a component survives, its deductions are certain for the
+ * setting and become plugs of the stop; the plugs of all such components have to agree. Components where several
+ * hypotheses survive, usually the ones without a loop, don't add plugs.
+ * <p/>
+ * S_t only depends on the setting and the position, its entries are computed when the test first needs them. Every
+ * thread creates its state once and reuses it for every setting of its range.
+ */
+public class EnigmaBombeSearch extends RecursiveTask<List<BombeStop>> {
+
+	/**
+	 * Ranges with more settings than this are split up further
+	 */
+	public static final long SPLIT_THRESHOLD = 1024;
+
+	/**
+	 * the settings to try
+	 */
+	protected final EnigmaKeySpace keySpace;
+
+	/**
+	 * the first rank (inclusive)
+	 */
+	protected final long from;
+
+	/**
+	 * the last rank (exclusive)
+	 */
+	protected final long to;
+
+	/**
+	 * the menus of the possible crib positions
+	 */
+	protected final List<BombeMenu> menus;
+
+	/**
+	 * the first position of the ciphertext any menu uses
+	 */
+	protected final int firstPosition;
+
+	/**
+	 * the number of positions of the ciphertext the menus use, starting at firstPosition
+	 */
+	protected final int positionCount;
+
+	/**
+	 * Creates a search over the settings with a rank in [from, to)
+	 *
+	 * @param keySpace the settings to try
+	 * @param from     the first rank (inclusive)
+	 * @param to       the last rank (exclusive)
+	 * @param menus    the menus of the possible crib positions
+	 * @param cribLen  the length of the crib
+	 */
+	public EnigmaBombeSearch(EnigmaKeySpace keySpace, long from, long to, List<BombeMenu> menus, int cribLen) {
+		if(from < 0 || to > keySpace.size() || from > to) {
+			throw new IllegalArgumentException("[" + from + ", " + to + ") isn't a valid range of this key space");
+		}
+		if(keySpace.getAlphabet().size() > Long.SIZE) {
+			throw new IllegalArgumentException("The bombe only works with alphabets of up to " + Long.SIZE + " characters");
+		}
+		this.keySpace = keySpace;
+		this.from = from;
+		this.to = to;
+		this.menus = menus;
+		int first = Integer.MAX_VALUE;
+		int last = 0;
+		for(BombeMenu menu : menus) {
+			first = Math.min(first, menu.getOffset());
+			last = Math.max(last, menu.getOffset() + cribLen);
+		}
+		this.firstPosition = menus.isEmpty() ? 0 : first;
+		this.positionCount = menus.isEmpty() ? 0 : last - first;
+	}
+
+	/**
+	 * Searches the range
+	 *
+	 * @return the stops, ordered by the rank of their setting and the position of the crib
+	 */
+	@Override
+	protected List<BombeStop> compute() {
+		if(to - from > SPLIT_THRESHOLD) {
+			// search one half in another thread and the other one in this thread
+			long half = from + (to - from) / 2;
+			EnigmaBombeSearch lower = copy(from, half);
+			EnigmaBombeSearch upper = copy(half, to);
+			lower.fork();
+			List<BombeStop> upperStops = upper.compute();
+			List<BombeStop> ret = lower.join();
+			ret.addAll(upperStops);
+			return ret;
+		}
+
+		List<BombeStop> ret = new ArrayList<BombeStop>();
+		if(menus.isEmpty()) {
+			return ret;
+		}
+		State state = new State();
+		for(long rank = from; rank < to; rank++) {
+			state.setRank(rank);
+			for(BombeMenu menu : menus) {
+				if(state.test(menu)) {
+					ret.add(new BombeStop(new EnigmaSetting(state.order, state.starts, state.reflector, 0), menu.getOffset(), state.plugs()));
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return a search over another range with the same menus
+	 */
+	private EnigmaBombeSearch copy(long from, long to) {
+		return new EnigmaBombeSearch(this, from, to);
+	}
+
+	/**
+	 * Creates a search over another range with the same menus
+	 */
+	private EnigmaBombeSearch(EnigmaBombeSearch other, long from, long to) {
+		this.keySpace = other.keySpace;
+		this.from = from;
+		this.to = to;
+		this.menus = other.menus;
+		this.firstPosition = other.firstPosition;
+		this.positionCount = other.positionCount;
+	}
+
+	/**
+	 * The state of one thread: the current setting, the scrambler entries computed for it and the deductions of the
+	 * current test
+	 */
+	private class State {
+		/**
+		 * the number of characters
+		 */
+		private final int n = keySpace.getAlphabet().size();
+
+		/**
+		 * the index of the used reverse rotor
+		 */
+		private int reflector;
+
+		/**
+		 * the indices of the used rotors
+		 */
+		private final int[] order = new int[keySpace.getRotorCount()];
+
+		/**
+		 * the start positions
+		 */
+		private final int[] starts = new int[keySpace.getRotorCount()];
+
+		/**
+		 * the positions of the rotors at every position of the ciphertext the menus use
+		 */
+		private final int[][] positions = new int[positionCount][keySpace.getRotorCount()];
+
+		/**
+		 * the scrambler S_t, entry (t - firstPosition) * n + u, valid if its generation is the current one
+		 */
+		private final int[] scrambler = new int[positionCount * n];
+
+		/**
+		 * the generation every scrambler entry was computed in
+		 */
+		private final int[] scramblerGeneration = new int[positionCount * n];
+
+		/**
+		 * counts up with every setting
+		 */
+		private int generation;
+
+		/**
+		 * deduced[a] has bit u set if P(a) = u was deduced from the current hypothesis
+		 */
+		private final long[] deduced = new long[n];
+
+		/**
+		 * the deductions of the only hypothesis of the current component that isn't wrong
+		 */
+		private final long[] single = new long[n];
+
+		/**
+		 * plugged[a] has bit u set if P(a) = u is certain, because it follows from the only hypothesis of a component
+		 * that isn't wrong
+		 */
+		private final long[] plugged = new long[n];
+
+		/**
+		 * the deductions of the current hypothesis, as pairs of character and value. The ones from head on still
+		 * have to be followed.
+		 */
+		private final int[] queue = new int[4 * n];
+
+		/**
+		 * the number of entries in the queue
+		 */
+		private int queueSize;
+
+		/**
+		 * switches to the setting with the given rank
+		 *
+		 * @param rank the rank of the setting
+		 */
+		void setRank(long rank) {
+			reflector = keySpace.decode(rank, order, starts);
+			keySpace.positionsAt(starts, firstPosition, positions[0]);
+			for(int t = 1; t < positionCount; t++) {
+				// step like the enigma does, the next rotor moves when the previous one is back at its start
+				System.arraycopy(positions[t - 1], 0, positions[t], 0, order.length);
+				for(int j = 0; j < order.length; j++) {
+					if(++positions[t][j] == n) {
+						positions[t][j] = 0;
+					}
+					if(positions[t][j] != starts[j]) {
+						break;
+					}
+				}
+			}
+			if(++generation == 0) {
+				// after the generations ran through all ints the old entries could look valid again
+				Arrays.fill(scramblerGeneration, 0);
+				generation = 1;
+			}
+		}
+
+		/**
+		 * Tests whether every component of the menu has a hypothesis that isn't wrong
+		 *
+		 * @param menu the menu
+		 * @return true if the bombe stops, the certain deductions are left in plugged
+		 */
+		boolean test(BombeMenu menu) {
+			Arrays.fill(plugged, 0);
+			for(int x : menu.testLetters) {
+				// every hypothesis starts without deductions, the second one that isn't wrong ends the search
+				int survivors = 0;
+				for(int y = 0; y < n && survivors < 2; y++) {
+					if(follow(menu, x, y)) {
+						if(++survivors == 1) {
+							System.arraycopy(deduced, 0, single, 0, n);
+						}
+					}
+					forget();
+				}
+				if(survivors == 0) {
+					return false;
+				}
+				if(survivors == 1 && !plug()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Adds the deductions of the only hypothesis of a component that isn't wrong to the certain ones
+		 *
+		 * @return false if they connect a character to another one than a certain deduction of another component
+		 */
+		private boolean plug() {
+			for(int a = 0; a < n; a++) {
+				if(single[a] != 0 && plugged[a] != 0 && single[a] != plugged[a]) {
+					return false;
+				}
+				plugged[a] |= single[a];
+			}
+			return true;
+		}
+
+		/**
+		 * Removes the deductions of the last hypothesis, every one of them is still in the queue
+		 */
+		private void forget() {
+			for(int i = 0; i < queueSize; i += 2) {
+				deduced[queue[i]] = 0;
+			}
+		}
+
+		/**
+		 * Follows the hypothesis P(x) = y through the menu
+		 *
+		 * @return false if the hypothesis is wrong
+		 */
+		private boolean follow(BombeMenu menu, int x, int y) {
+			queueSize = 0;
+			if(!deduce(x, y)) {
+				return false;
+			}
+			for(int head = 0; head < queueSize; head += 2) {
+				int a = queue[head];
+				int u = queue[head + 1];
+				int[] edges = menu.edges[a];
+				for(int e = 0; e < edges.length; e += 2) {
+					if(!deduce(edges[e], scramble(edges[e + 1], u))) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Adds P(a) = u and P(u) = a to the deductions
+		 *
+		 * @return false if a or u already are connected to another character
+		 */
+		private boolean deduce(int a, int u) {
+			return deduceOne(a, u) && (a == u || deduceOne(u, a));
+		}
+
+		/**
+		 * Adds P(a) = u to the deductions
+		 *
+		 * @return false if a already is connected to another character
+		 */
+		private boolean deduceOne(int a, int u) {
+			long bit = 1L << u;
+			if(deduced[a] == bit) {
+				return true;
+			}
+			if(deduced[a] != 0) {
+				return false;
+			}
+			deduced[a] = bit;
+			queue[queueSize++] = a;
+			queue[queueSize++] = u;
+			return true;
+		}
+
+		/**
+		 * @return S_t(u) for the current setting
+		 */
+		private int scramble(int t, int u) {
+			int index = (t - firstPosition) * n + u;
+			if(scramblerGeneration[index] != generation) {
+				scrambler[index] = keySpace.scramble(reflector, order, positions[t - firstPosition], u);
+				scramblerGeneration[index] = generation;
+			}
+			return scrambler[index];
+		}
+
+		/**
+		 * @return the certain connections of the pinboard
+		 */
+		Map<Character, Character> plugs() {
+			Map<Character, Character> ret = new HashMap<Character, Character>();
+			for(int a = 0; a < n; a++) {
+				if(plugged[a] != 0) {
+					ret.put(keySpace.getAlphabet().getChar(a), keySpace.getAlphabet().getChar(Long.numberOfTrailingZeros(plugged[a])));
+				}
+			}
+			return ret;
+		}
+	}
+}
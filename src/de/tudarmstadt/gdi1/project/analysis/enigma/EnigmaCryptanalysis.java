@@ -0,0 +1,87 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.Distribution;
+
+import java.util.List;
+
+/**
+ * Attacks on an enigma whose rotors and reverse rotor are known, but not which rotors are used in which order, where
+ * they start and how the pinboard is connected
+ */
+public interface EnigmaCryptanalysis {
+
+	/**
+	 * Attack to determine the rotor order and start positions from a ciphertext only. Every setting of the key space
+	 * is tried and rated by the index of coincidence of its decryption.
+	 *
+	 * @param ciphertext the ciphertext
+	 * @param keySpace   the settings to try
+	 * @param topK       the number of settings to return
+	 * @return the best settings, best first
+	 */
+	List<EnigmaSetting> knownCiphertextAttack(String ciphertext, EnigmaKeySpace keySpace, int topK);
+
+	/**
+	 * Attack to determine the rotor order and start positions from a ciphertext only. Every setting of the key space
+	 * is tried and rated by the n-gram statistics of the distribution.
+	 *
+	 * @param ciphertext   the ciphertext
+	 * @param keySpace     the settings to try
+	 * @param distribution the distribution of the language of the plaintext
+	 * @param topK         the number of settings to return
+	 * @return the best settings, best first
+	 * @throws IllegalArgumentException if the distribution doesn't use the alphabet of the key space
+	 */
+	List<EnigmaSetting> knownCiphertextAttack(String ciphertext, EnigmaKeySpace keySpace, Distribution distribution, int topK);
+
+	/**
+	 * Attack to determine the rotor order and start positions from a ciphertext only. Every setting of the key space
+	 * is tried and rated by the given score.
+	 *
+	 * @param ciphertext the ciphertext
+	 * @param keySpace   the settings to try
+	 * @param score      rates the decryptions
+	 * @param topK       the number of settings to return
+	 * @return the best settings, best first
+	 */
+	List<EnigmaSetting> knownCiphertextAttack(String ciphertext, EnigmaKeySpace keySpace, EnigmaScore score, int topK);
+
+	/**
+	 * Attack with a crib, a part of the plaintext whose position isn't known, like the bombe. The crib is tried at
+	 * every position where none of its characters is at the same place in the ciphertext. For every position and
+	 * every setting of the key space the bombe tests whether a pinboard exists that agrees with it.
+	 *
+	 * @param ciphertext the ciphertext
+	 * @param crib       a part of the plaintext
+	 * @param keySpace   the settings to try
+	 * @return the stops of the bombe, ordered by the rank of their setting and the position of the crib
+	 * @throws IllegalArgumentException if the crib is empty or too short to rule out any setting
+	 */
+	List<BombeStop> knownPlaintextAttack(String ciphertext, String crib, EnigmaKeySpace keySpace);
+
+	/**
+	 * Attack with a crib at a known position, like the bombe
+	 *
+	 * @param ciphertext the ciphertext
+	 * @param crib       a part of the plaintext
+	 * @param offset     the position of the crib in the ciphertext
+	 * @param keySpace   the settings to try
+	 * @return the stops of the bombe, ordered by the rank of their setting
+	 * @throws IllegalArgumentException if the crib is empty or too short to rule out any setting
+	 */
+	List<BombeStop> knownPlaintextAttack(String ciphertext, String crib, int offset, EnigmaKeySpace keySpace);
+
+	/**
+	 * Attack to determine the pinboard once the rotor order and start positions are known, by hill climbing on the
+	 * n-gram statistics of the decryption
+	 *
+	 * @param ciphertext   the ciphertext
+	 * @param keySpace     the key space the setting belongs to
+	 * @param setting      the rotor order and start positions
+	 * @param distribution the distribution of the language of the plaintext
+	 * @return the output alphabet of the pinboard
+	 * @throws IllegalArgumentException if the distribution doesn't use the alphabet of the key space
+	 */
+	Alphabet pinBoardAttack(String ciphertext, EnigmaKeySpace keySpace, EnigmaSetting setting, Distribution distribution);
+}
@@ -0,0 +1,145 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.Distribution;
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Attacks on an enigma by trying every setting of a key space on all cores, see {@link EnigmaKeySpaceSearch} and
+ * {@link EnigmaBombeSearch}, and on its pinboard by hill climbing, see {@link EnigmaPinBoardSolver}
+ */
+public class EnigmaCryptanalysisImpl implements EnigmaCryptanalysis {
+
+	/**
+	 * the largest number of pairs the pinboard attack connects, the real machine had 10 cables
+	 */
+	public static final int MAX_PAIRS = 10;
+
+	/**
+	 * the number of random pinboards the pinboard attack climbs from, besides the one without connections
+	 */
+	public static final int RESTARTS = 16;
+
+	/**
+	 * the shortest crib the bombe accepts. The menu of a shorter crib hardly ever has a loop, so the bombe would stop
+	 * at almost every setting.
+	 */
+	public static final int MIN_CRIB_LENGTH = 8;
+
+	@Override
+	public List<EnigmaSetting> knownCiphertextAttack(String ciphertext, EnigmaKeySpace keySpace, int topK) {
+		return knownCiphertextAttack(ciphertext, keySpace, new IndexOfCoincidenceScore(keySpace.getAlphabet().size()), topK);
+	}
+
+	@Override
+	public List<EnigmaSetting> knownCiphertextAttack(String ciphertext, EnigmaKeySpace keySpace, Distribution distribution, int topK) {
+		return knownCiphertextAttack(ciphertext, keySpace, createScore(keySpace, distribution), topK);
+	}
+
+	@Override
+	public List<EnigmaSetting> knownCiphertextAttack(String ciphertext, EnigmaKeySpace keySpace, EnigmaScore score, int topK) {
+		if(topK < 1) {
+			throw new IllegalArgumentException("At least one setting has to be returned");
+		}
+		int[] text = keySpace.toIndices(ciphertext);
+		return SharedForkJoinPool.get().invoke(new EnigmaKeySpaceSearch(keySpace, 0, keySpace.size(), text, score, topK));
+	}
+
+	@Override
+	public List<BombeStop> knownPlaintextAttack(String ciphertext, String crib, EnigmaKeySpace keySpace) {
+		checkCrib(crib);
+		int[] text = keySpace.toIndices(ciphertext);
+		int[] cribText = keySpace.toIndices(crib);
+		return bombe(text, cribText, BombeMenu.possibleOffsets(text, cribText), keySpace);
+	}
+
+	@Override
+	public List<BombeStop> knownPlaintextAttack(String ciphertext, String crib, int offset, EnigmaKeySpace keySpace) {
+		checkCrib(crib);
+		int[] text = keySpace.toIndices(ciphertext);
+		int[] cribText = keySpace.toIndices(crib);
+		if(offset < 0 || offset + cribText.length > text.length) {
+			throw new IllegalArgumentException("The crib doesn't fit into the ciphertext at " + offset);
+		}
+		// a crib that encrypts a character to itself can't be at this position
+		if(!BombeMenu.possibleOffsets(Arrays.copyOfRange(text, offset, offset + cribText.length), cribText).contains(0)) {
+			return new ArrayList<BombeStop>();
+		}
+		return bombe(text, cribText, Collections.singletonList(offset), keySpace);
+	}
+
+	/**
+	 * Checks that the crib is long enough for the bombe
+	 *
+	 * @param crib a part of the plaintext
+	 * @throws IllegalArgumentException if the crib is shorter than {@link #MIN_CRIB_LENGTH}
+	 */
+	protected void checkCrib(String crib) {
+		if(crib.length() < MIN_CRIB_LENGTH) {
+			throw new IllegalArgumentException("The crib needs at least " + MIN_CRIB_LENGTH + " characters, but has " + crib.length());
+		}
+	}
+
+	/**
+	 * Runs the bombe on all cores
+	 *
+	 * @param text     the ciphertext as indices
+	 * @param crib     the crib as indices
+	 * @param offsets  the positions of the crib to try
+	 * @param keySpace the settings to try
+	 * @return the stops
+	 */
+	protected List<BombeStop> bombe(int[] text, int[] crib, List<Integer> offsets, EnigmaKeySpace keySpace) {
+		List<BombeMenu> menus = new ArrayList<BombeMenu>();
+		for(int offset : offsets) {
+			menus.add(new BombeMenu(text, crib, offset, keySpace.getAlphabet().size()));
+		}
+		return SharedForkJoinPool.get().invoke(new EnigmaBombeSearch(keySpace, 0, keySpace.size(), menus, crib.length));
+	}
+
+	/**
+	 * Creates the n-gram score of the distribution for texts of the key space
+	 *
+	 * @param keySpace     the key space the texts are converted by
+	 * @param distribution the distribution of the language of the plaintext
+	 * @return the score
+	 * @throws IllegalArgumentException if the distribution doesn't use the alphabet of the key space, the indices of
+	 *                                  the texts wouldn't match the n-grams of the score
+	 */
+	protected NgramScore createScore(EnigmaKeySpace keySpace, Distribution distribution) {
+		if(!keySpace.getAlphabet().equals(distribution.getAlphabet())) {
+			throw new IllegalArgumentException("The distribution has to use the alphabet of the key space");
+		}
+		return new NgramScore(distribution);
+	}
+
+	@Override
+	public Alphabet pinBoardAttack(String ciphertext, EnigmaKeySpace keySpace, EnigmaSetting setting, Distribution distribution) {
+		// the same attack always finds the same pinboard
+		long seed = 31L * ciphertext.hashCode() + keySpace.rankOf(setting);
+		return pinBoardAttack(ciphertext, keySpace, setting, distribution, seed);
+	}
+
+	/**
+	 * Attack to determine the pinboard once the rotor order and start positions are known, by hill climbing on the
+	 * n-gram statistics of the decryption, see {@link EnigmaPinBoardSolver#solve(int, int, Random)}
+	 *
+	 * @param ciphertext   the ciphertext
+	 * @param keySpace     the key space the setting belongs to
+	 * @param setting      the rotor order and start positions
+	 * @param distribution the distribution of the language of the plaintext
+	 * @param seed         chooses the random pinboards the climbs start from
+	 * @return the output alphabet of the pinboard
+	 * @throws IllegalArgumentException if the distribution doesn't use the alphabet of the key space
+	 */
+	public Alphabet pinBoardAttack(String ciphertext, EnigmaKeySpace keySpace, EnigmaSetting setting, Distribution distribution, long seed) {
+		EnigmaPinBoardSolver solver = new EnigmaPinBoardSolver(keySpace, setting, ciphertext, createScore(keySpace, distribution));
+		return solver.solve(MAX_PAIRS, RESTARTS, new Random(seed));
+	}
+}
@@ -0,0 +1,535 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.PinBoardImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.ReverseRotorImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.Rotor;
+import de.tudarmstadt.gdi1.project.cipher.enigma.RotorImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.exception.KeySpaceTooLargeException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * All settings of an enigma that can be built from a set of rotors and a set of reverse rotors: every order of
+ * rotorCount different rotors from the set, every rotor in every start position, every reverse rotor. The pinboard
+ * isn't part of the key space, it connects every character with itself.
+ * <p/>
+ * Every setting has a rank between 0 and {@link #size()} - 1. The reverse rotor is the most significant part, followed
+ * by the rank of the rotor order, so settings with the same rotors are next to each other, and the start positions
+ * form a mixed radix number with the position of the first rotor as the lowest digit. Settings are only built when
+ * they are asked for, so a {@link Slice} of the key space can be handed to another thread or process as two ranks.
+ */
+public class EnigmaKeySpace {
+
+	/**
+	 * the alphabet of the machine
+	 */
+	protected final Alphabet alphabet;
+
+	/**
+	 * the output alphabets of the available rotors
+	 */
+	protected final List<Alphabet> rotorAlphabets;
+
+	/**
+	 * the output alphabets of the available reverse rotors
+	 */
+	protected final List<Alphabet> reflectorAlphabets;
+
+	/**
+	 * the number of rotors in the machine
+	 */
+	protected final int rotorCount;
+
+	/**
+	 * the available rotors, all starting at 0. They are only used to translate at given positions, so the searches
+	 * of all threads can share them.
+	 */
+	protected final RotorImpl[] rotors;
+
+	/**
+	 * reflectors[r][i] is the index of the character the r-th reverse rotor translates the i-th character of the
+	 * alphabet to
+	 */
+	protected final int[][] reflectors;
+
+	/**
+	 * the number of start positions of the rotors, size of the alphabet ^ rotorCount
+	 */
+	protected final long positionCount;
+
+	/**
+	 * the number of settings with one reverse rotor
+	 */
+	protected final long reflectorSize;
+
+	/**
+	 * the number of settings
+	 */
+	protected final long size;
+
+	/**
+	 * Creates the key space of a machine with one reverse rotor
+	 *
+	 * @param alphabet          the alphabet of the machine
+	 * @param rotorAlphabets    the output alphabets of the available rotors, their input alphabet is the alphabet
+	 * @param reflectorAlphabet the output alphabet of the reverse rotor
+	 * @param rotorCount        the number of rotors in the machine
+	 */
+	public EnigmaKeySpace(Alphabet alphabet, List<Alphabet> rotorAlphabets, Alphabet reflectorAlphabet, int rotorCount) {
+		this(alphabet, rotorAlphabets, Collections.singletonList(reflectorAlphabet), rotorCount);
+	}
+
+	/**
+	 * Creates the key space
+	 *
+	 * @param alphabet           the alphabet of the machine
+	 * @param rotorAlphabets     the output alphabets of the available rotors, their input alphabet is the alphabet
+	 * @param reflectorAlphabets the output alphabets of the available reverse rotors
+	 * @param rotorCount         the number of rotors in the machine
+	 */
+	public EnigmaKeySpace(Alphabet alphabet, List<Alphabet> rotorAlphabets, List<Alphabet> reflectorAlphabets, int rotorCount) {
+		if(rotorCount < 1 || rotorCount > rotorAlphabets.size()) {
+			throw new IllegalArgumentException("Can't choose " + rotorCount + " of " + rotorAlphabets.size() + " rotors");
+		}
+		if(reflectorAlphabets.isEmpty()) {
+			throw new IllegalArgumentException("The key space needs at least one reverse rotor");
+		}
+		this.alphabet = alphabet;
+		this.rotorAlphabets = Collections.unmodifiableList(new ArrayList<Alphabet>(rotorAlphabets));
+		this.reflectorAlphabets = Collections.unmodifiableList(new ArrayList<Alphabet>(reflectorAlphabets));
+		this.rotorCount = rotorCount;
+
+		this.rotors = new RotorImpl[rotorAlphabets.size()];
+		for(int i = 0; i < rotors.length; i++) {
+			rotors[i] = new RotorImpl(alphabet, rotorAlphabets.get(i), 0);
+		}
+		// the reverse rotors check that they are valid, the search only needs their indices
+		this.reflectors = new int[reflectorAlphabets.size()][alphabet.size()];
+		for(int r = 0; r < reflectors.length; r++) {
+			ReverseRotorImpl reverseRotor = new ReverseRotorImpl(alphabet, reflectorAlphabets.get(r));
+			for(int i = 0; i < alphabet.size(); i++) {
+				reflectors[r][i] = alphabet.getIndex(reverseRotor.translate(alphabet.getChar(i)));
+			}
+		}
+
+		// count the settings, the rotor orders are the number of ordered choices of rotorCount rotors
+		long orders = 1;
+		long positions = 1;
+		for(int i = 0; i < rotorCount; i++) {
+			orders = multiply(orders, rotors.length - i);
+			positions = multiply(positions, alphabet.size());
+		}
+		this.positionCount = positions;
+		this.reflectorSize = multiply(orders, positions);
+		this.size = multiply(reflectorSize, reflectors.length);
+	}
+
+	/**
+	 * @return the number of settings
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return the alphabet of the machine
+	 */
+	public Alphabet getAlphabet() {
+		return alphabet;
+	}
+
+	/**
+	 * @return the number of rotors in the machine
+	 */
+	public int getRotorCount() {
+		return rotorCount;
+	}
+
+	/**
+	 * @return the output alphabets of the available rotors
+	 */
+	public List<Alphabet> getRotorAlphabets() {
+		return rotorAlphabets;
+	}
+
+	/**
+	 * @return the output alphabets of the available reverse rotors
+	 */
+	public List<Alphabet> getReflectorAlphabets() {
+		return reflectorAlphabets;
+	}
+
+	/**
+	 * Returns the setting with the given rank
+	 *
+	 * @param rank the rank, between 0 and {@link #size()} - 1
+	 * @return the setting, with a score of 0
+	 */
+	public EnigmaSetting settingAt(long rank) {
+		int[] order = new int[rotorCount];
+		int[] starts = new int[rotorCount];
+		int reflector = decode(rank, order, starts);
+		return new EnigmaSetting(order, starts, reflector, 0);
+	}
+
+	/**
+	 * Returns the rank of the given setting
+	 *
+	 * @param setting a setting of this key space
+	 * @return the rank
+	 */
+	public long rankOf(EnigmaSetting setting) {
+		int[] order = setting.getRotorOrder();
+		int[] starts = setting.getStartPositions();
+		if(order.length != rotorCount || starts.length != rotorCount) {
+			throw new IllegalArgumentException("The setting has to use " + rotorCount + " rotors");
+		}
+		if(setting.getReflector() < 0 || setting.getReflector() >= reflectors.length) {
+			throw new IllegalArgumentException("The reverse rotor " + setting.getReflector() + " isn't part of the key space");
+		}
+
+		// the digit of every rotor is the number of unused rotors before it
+		boolean[] used = new boolean[rotors.length];
+		long orderRank = 0;
+		for(int i = rotorCount - 1; i >= 0; i--) {
+			used[order[i]] = true;
+		}
+		for(int i = rotorCount - 1; i >= 0; i--) {
+			used[order[i]] = false;
+			int digit = 0;
+			for(int k = 0; k < order[i]; k++) {
+				if(!used[k]) {
+					digit++;
+				}
+			}
+			orderRank = orderRank * (rotors.length - i) + digit;
+		}
+
+		long positionRank = 0;
+		for(int i = rotorCount - 1; i >= 0; i--) {
+			if(starts[i] < 0 || starts[i] >= alphabet.size()) {
+				throw new IllegalArgumentException("The start position " + starts[i] + " isn't part of the key space");
+			}
+			positionRank = positionRank * alphabet.size() + starts[i];
+		}
+		return setting.getReflector() * reflectorSize + orderRank * positionCount + positionRank;
+	}
+
+	/**
+	 * Writes the rotor order and start positions of the setting with the given rank into the arrays, without
+	 * allocating anything
+	 *
+	 * @param rank   the rank, between 0 and {@link #size()} - 1
+	 * @param order  receives the indices of the used rotors
+	 * @param starts receives the start positions
+	 * @return the index of the used reverse rotor
+	 */
+	public int decode(long rank, int[] order, int[] starts) {
+		if(rank < 0 || rank >= size) {
+			throw new IllegalArgumentException(rank + " isn't a rank of this key space");
+		}
+		int reflector = (int) (rank / reflectorSize);
+		long positionRank = rank % positionCount;
+		long orderRank = rank % reflectorSize / positionCount;
+
+		int n = alphabet.size();
+		for(int i = 0; i < rotorCount; i++) {
+			starts[i] = (int) (positionRank % n);
+			positionRank /= n;
+		}
+
+		// the i-th digit chooses among the rotors that aren't used by the rotors before
+		for(int i = 0; i < rotorCount; i++) {
+			int base = rotors.length - i;
+			int digit = (int) (orderRank % base);
+			orderRank /= base;
+			int rotor = -1;
+			while(digit >= 0) {
+				rotor++;
+				if(!isUsed(order, i, rotor)) {
+					digit--;
+				}
+			}
+			order[i] = rotor;
+		}
+		return reflector;
+	}
+
+	/**
+	 * Decrypts text with the given setting, without allocating anything. The characters are indices in the
+	 * alphabet.
+	 *
+	 * @param reflector the index of the used reverse rotor
+	 * @param order     the indices of the used rotors
+	 * @param starts    the start positions
+	 * @param pinBoard  pinBoard[i] is the index the pinboard connects index i with, or null for no pinboard
+	 * @param text      the ciphertext
+	 * @param len       the number of characters
+	 * @param plain     receives the plaintext
+	 * @param positions space for the positions of the rotors, as long as order
+	 */
+	public void decrypt(int reflector, int[] order, int[] starts, int[] pinBoard, int[] text, int len, int[] plain, int[] positions) {
+		int n = alphabet.size();
+		int[] reflect = reflectors[reflector];
+		System.arraycopy(starts, 0, positions, 0, rotorCount);
+		for(int t = 0; t < len; t++) {
+			int index = text[t];
+			if(pinBoard != null) {
+				index = pinBoard[index];
+			}
+			for(int j = 0; j < rotorCount; j++) {
+				index = rotors[order[j]].translateIndex(index, true, positions[j]);
+			}
+			index = reflect[index];
+			for(int j = rotorCount - 1; j >= 0; j--) {
+				index = rotors[order[j]].translateIndex(index, false, positions[j]);
+			}
+			plain[t] = pinBoard != null ? pinBoard[index] : index;
+
+			// move the rotors like EnigmaSession does, every start is inside the alphabet
+			for(int j = 0; j < rotorCount; j++) {
+				if(++positions[j] == n) {
+					positions[j] = 0;
+				}
+				if(positions[j] != starts[j]) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the positions of the rotors after the given number of characters, without stepping through them
+	 *
+	 * @param starts    the start positions
+	 * @param steps     the number of characters
+	 * @param positions receives the positions, as long as starts
+	 */
+	public void positionsAt(int[] starts, long steps, int[] positions) {
+		// every start is inside the alphabet, so the positions are the digits of steps in base alphabet size
+		int n = alphabet.size();
+		for(int j = 0; j < rotorCount; j++) {
+			positions[j] = (int) ((starts[j] + steps % n) % n);
+			steps /= n;
+		}
+	}
+
+	/**
+	 * Passes a character through the rotors, the reverse rotor and back, without the pinboard. At a fixed position
+	 * this is the same for every character, an involution of the alphabet.
+	 *
+	 * @param reflector the index of the used reverse rotor
+	 * @param order     the indices of the used rotors
+	 * @param positions the positions of the rotors
+	 * @param index     the character as an index in the alphabet
+	 * @return the index of the translated character
+	 */
+	public int scramble(int reflector, int[] order, int[] positions, int index) {
+		for(int j = 0; j < rotorCount; j++) {
+			index = rotors[order[j]].translateIndex(index, true, positions[j]);
+		}
+		index = reflectors[reflector][index];
+		for(int j = rotorCount - 1; j >= 0; j--) {
+			index = rotors[order[j]].translateIndex(index, false, positions[j]);
+		}
+		return index;
+	}
+
+	/**
+	 * Translates a text into indices in the alphabet
+	 *
+	 * @param text the text
+	 * @return the index of every character
+	 */
+	public int[] toIndices(String text) {
+		int[] ret = new int[text.length()];
+		for(int i = 0; i < ret.length; i++) {
+			ret[i] = alphabet.getIndex(text.charAt(i));
+			if(ret[i] == -1) {
+				throw new InvalidCharacterException("The character '" + text.charAt(i) + "' isn't part of the alphabet!");
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Builds the machine of a setting, with a pinboard that doesn't change anything
+	 *
+	 * @param setting a setting of this key space
+	 * @return the machine
+	 */
+	public EnigmaImpl createEnigma(EnigmaSetting setting) {
+		return createEnigma(setting, alphabet);
+	}
+
+	/**
+	 * Builds the machine of a setting with the given pinboard
+	 *
+	 * @param setting  a setting of this key space
+	 * @param pinBoard the output alphabet of the pinboard
+	 * @return the machine
+	 */
+	public EnigmaImpl createEnigma(EnigmaSetting setting, Alphabet pinBoard) {
+		int[] order = setting.getRotorOrder();
+		int[] starts = setting.getStartPositions();
+		List<Rotor> machineRotors = new ArrayList<Rotor>();
+		for(int i = 0; i < order.length; i++) {
+			machineRotors.add(new RotorImpl(alphabet, rotorAlphabets.get(order[i]), starts[i]));
+		}
+		return new EnigmaImpl(machineRotors, new PinBoardImpl(alphabet, pinBoard),
+				new ReverseRotorImpl(alphabet, reflectorAlphabets.get(setting.getReflector())));
+	}
+
+	/**
+	 * Returns the slice of all settings with a rank in [from, to)
+	 *
+	 * @param from the first rank (inclusive)
+	 * @param to   the last rank (exclusive)
+	 * @return the slice
+	 */
+	public Slice slice(long from, long to) {
+		if(from < 0 || to > size || from > to) {
+			throw new IllegalArgumentException("[" + from + ", " + to + ") isn't a valid range of this key space");
+		}
+		return new Slice(from, to);
+	}
+
+	/**
+	 * Splits the key space into count slices of (almost) the same size and returns the one with the given index.
+	 * Workers that each take a different index search disjoint parts that together cover the whole key space.
+	 *
+	 * @param index the index of the shard, between 0 and count - 1
+	 * @param count the number of shards
+	 * @return the shard
+	 */
+	public Slice shard(int index, int count) {
+		if(count <= 0 || index < 0 || index >= count) {
+			throw new IllegalArgumentException("shard " + index + " of " + count + " doesn't exist");
+		}
+		// the first size % count shards get one setting more than the others
+		long base = size / count;
+		long rest = size % count;
+		long from = index * base + Math.min(index, rest);
+		long to = from + base + (index < rest ? 1 : 0);
+		return new Slice(from, to);
+	}
+
+	/**
+	 * @param order the rotors chosen so far
+	 * @param count the number of rotors chosen so far
+	 * @param rotor a rotor
+	 * @return true if the rotor is one of the first count rotors of order
+	 */
+	private static boolean isUsed(int[] order, int count, int rotor) {
+		for(int i = 0; i < count; i++) {
+			if(order[i] == rotor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A continuous range of ranks of the key space. Its settings are decoded one after the other while iterating,
+	 * none of them is stored.
+	 */
+	public class Slice implements Iterable<EnigmaSetting> {
+
+		/**
+		 * first rank of the slice (inclusive)
+		 */
+		protected final long from;
+
+		/**
+		 * last rank of the slice (exclusive)
+		 */
+		protected final long to;
+
+		/**
+		 * Creates a slice
+		 *
+		 * @param from first rank (inclusive)
+		 * @param to   last rank (exclusive)
+		 */
+		protected Slice(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * @return the first rank of the slice (inclusive)
+		 */
+		public long getFrom() {
+			return from;
+		}
+
+		/**
+		 * @return the last rank of the slice (exclusive)
+		 */
+		public long getTo() {
+			return to;
+		}
+
+		/**
+		 * @return the number of settings in the slice
+		 */
+		public long size() {
+			return to - from;
+		}
+
+		/**
+		 * @return the key space this slice belongs to
+		 */
+		public EnigmaKeySpace getKeySpace() {
+			return EnigmaKeySpace.this;
+		}
+
+		/**
+		 * Returns an iterator over all settings of this slice in the order of their ranks
+		 *
+		 * @return an iterator over the settings, all with a score of 0
+		 */
+		@Override
+		public Iterator<EnigmaSetting> iterator() {
+			return new Iterator<EnigmaSetting>() {
+				long rank = from;
+
+				@Override
+				public boolean hasNext() {
+					return rank < to;
+				}
+
+				@Override
+				public EnigmaSetting next() {
+					if(!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return settingAt(rank++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	/**
+	 * @return a * b
+	 * @throws KeySpaceTooLargeException if the product doesn't fit into a long
+	 */
+	private static long multiply(long a, long b) {
+		if(b != 0 && a > Long.MAX_VALUE / b) {
+			throw new KeySpaceTooLargeException("The enigma key space doesn't fit into a long");
+		}
+		return a * b;
+	}
+}
@@ -0,0 +1,150 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Decrypts a ciphertext with every setting of a range of an {@link EnigmaKeySpace} and keeps the best ones. The range
+ * is halved until the parts are small enough, every part is searched by one thread of the pool with its own machine
+ * state, which is created once and reused for every setting.
+ * <p/>
+ * Usage: {@code SharedForkJoinPool.get().invoke(new EnigmaKeySpaceSearch(keySpace, 0, keySpace.size(), ciphertext, score, 10))}
+ */
+public class EnigmaKeySpaceSearch extends RecursiveTask<List<EnigmaSetting>> {
+
+	/**
+	 * Ranges with more settings than this are split up further
+	 */
+	public static final long SPLIT_THRESHOLD = 2048;
+
+	/**
+	 * sorts settings by their score, best first
+	 */
+	public static final Comparator<EnigmaSetting> BEST_FIRST = new Comparator<EnigmaSetting>() {
+		@Override
+		public int compare(EnigmaSetting o1, EnigmaSetting o2) {
+			return Double.compare(o2.getScore(), o1.getScore());
+		}
+	};
+
+	/**
+	 * the settings to try
+	 */
+	protected final EnigmaKeySpace keySpace;
+
+	/**
+	 * the first rank (inclusive)
+	 */
+	protected final long from;
+
+	/**
+	 * the last rank (exclusive)
+	 */
+	protected final long to;
+
+	/**
+	 * the ciphertext as indices in the alphabet
+	 */
+	protected final int[] ciphertext;
+
+	/**
+	 * rates the decryptions, every thread uses a copy
+	 */
+	protected final EnigmaScore score;
+
+	/**
+	 * the number of settings to return
+	 */
+	protected final int topK;
+
+	/**
+	 * Creates a search over the settings with a rank in [from, to)
+	 *
+	 * @param keySpace   the settings to try
+	 * @param from       the first rank (inclusive)
+	 * @param to         the last rank (exclusive)
+	 * @param ciphertext the ciphertext as indices in the alphabet, see {@link EnigmaKeySpace#toIndices(String)}
+	 * @param score      rates the decryptions
+	 * @param topK       the number of settings to return, at least 1
+	 */
+	public EnigmaKeySpaceSearch(EnigmaKeySpace keySpace, long from, long to, int[] ciphertext, EnigmaScore score, int topK) {
+		if(from < 0 || to > keySpace.size() || from > to) {
+			throw new IllegalArgumentException("[" + from + ", " + to + ") isn't a valid range of this key space");
+		}
+		if(topK < 1) {
+			throw new IllegalArgumentException("At least one setting has to be returned");
+		}
+		this.keySpace = keySpace;
+		this.from = from;
+		this.to = to;
+		this.ciphertext = ciphertext;
+		this.score = score;
+		this.topK = topK;
+	}
+
+	/**
+	 * Searches the range
+	 *
+	 * @return the best settings of the range, best first
+	 */
+	@Override
+	protected List<EnigmaSetting> compute() {
+		if(to - from > SPLIT_THRESHOLD) {
+			// search one half in another thread and the other one in this thread
+			long half = from + (to - from) / 2;
+			EnigmaKeySpaceSearch lower = new EnigmaKeySpaceSearch(keySpace, from, half, ciphertext, score, topK);
+			EnigmaKeySpaceSearch upper = new EnigmaKeySpaceSearch(keySpace, half, to, ciphertext, score, topK);
+			lower.fork();
+			List<EnigmaSetting> ret = upper.compute();
+			return merge(ret, lower.join(), topK);
+		}
+
+		// the state of the machine, reused for every setting
+		int rotorCount = keySpace.getRotorCount();
+		int reflector;
+		int[] order = new int[rotorCount];
+		int[] starts = new int[rotorCount];
+		int[] positions = new int[rotorCount];
+		int[] plain = new int[ciphertext.length];
+		EnigmaScore threadScore = score.copy();
+
+		// the worst of the best settings is on top, so it can be replaced quickly
+		PriorityQueue<EnigmaSetting> best = new PriorityQueue<EnigmaSetting>(topK + 1, Collections.reverseOrder(BEST_FIRST));
+		for(long rank = from; rank < to; rank++) {
+			reflector = keySpace.decode(rank, order, starts);
+			keySpace.decrypt(reflector, order, starts, null, ciphertext, ciphertext.length, plain, positions);
+			double value = threadScore.score(plain, ciphertext.length);
+			// only create a setting if it gets into the list
+			if(best.size() < topK || value > best.peek().getScore()) {
+				best.add(new EnigmaSetting(order, starts, reflector, value));
+				if(best.size() > topK) {
+					best.poll();
+				}
+			}
+		}
+
+		List<EnigmaSetting> ret = new ArrayList<EnigmaSetting>(best);
+		Collections.sort(ret, BEST_FIRST);
+		return ret;
+	}
+
+	/**
+	 * Merges the results of two searches
+	 *
+	 * @param a    the best settings of one search, best first
+	 * @param b    the best settings of another search, best first
+	 * @param topK the number of settings to keep
+	 * @return the best topK settings of both, best first
+	 */
+	protected static List<EnigmaSetting> merge(List<EnigmaSetting> a, List<EnigmaSetting> b, int topK) {
+		List<EnigmaSetting> ret = new ArrayList<EnigmaSetting>(a.size() + b.size());
+		ret.addAll(a);
+		ret.addAll(b);
+		Collections.sort(ret, BEST_FIRST);
+		return new ArrayList<EnigmaSetting>(ret.subList(0, Math.min(topK, ret.size())));
+	}
+}
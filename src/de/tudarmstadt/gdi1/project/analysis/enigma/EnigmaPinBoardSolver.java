@@ -0,0 +1,393 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the pinboard of an enigma whose rotors are known by hill climbing: starting with a pinboard, it tries to
+ * connect every pair of characters and keeps every change that makes the decryption score better, until no change
+ * helps anymore.
+ * <p/>
+ * At position t the enigma is P S_t P. S_t doesn't depend on the pinboard, so it's computed once for every position of
+ * the ciphertext. A change of the pinboard only touches the positions where the ciphertext character or the output of
+ * S_t is one of the changed characters, only those and the n-grams around them are computed again.
+ * <p/>
+ * The solver only keeps the table of S_t, {@link #climb(int[], int)} works on its own state, so several threads can
+ * climb from different starts at the same time.
+ */
+public class EnigmaPinBoardSolver {
+
+	/**
+	 * the number of characters
+	 */
+	protected final int n;
+
+	/**
+	 * the ciphertext as indices in the alphabet
+	 */
+	protected final int[] ciphertext;
+
+	/**
+	 * scrambler[t * n + u] is S_t(u)
+	 */
+	protected final int[] scrambler;
+
+	/**
+	 * rates the decryptions
+	 */
+	protected final NgramScore score;
+
+	/**
+	 * the alphabet of the machine
+	 */
+	protected final Alphabet alphabet;
+
+	/**
+	 * Creates the solver and computes S_t for every position of the ciphertext
+	 *
+	 * @param keySpace   the key space the setting belongs to
+	 * @param setting    the rotor order, start positions and reverse rotor
+	 * @param ciphertext the ciphertext
+	 * @param score      rates the decryptions
+	 */
+	public EnigmaPinBoardSolver(EnigmaKeySpace keySpace, EnigmaSetting setting, String ciphertext, NgramScore score) {
+		this.alphabet = keySpace.getAlphabet();
+		this.n = alphabet.size();
+		this.ciphertext = keySpace.toIndices(ciphertext);
+		this.score = score;
+
+		int[] order = setting.getRotorOrder();
+		int[] starts = setting.getStartPositions();
+		int[] positions = new int[order.length];
+		this.scrambler = new int[this.ciphertext.length * n];
+		for(int t = 0; t < this.ciphertext.length; t++) {
+			keySpace.positionsAt(starts, t, positions);
+			for(int u = 0; u < n; u++) {
+				scrambler[t * n + u] = keySpace.scramble(setting.getReflector(), order, positions, u);
+			}
+		}
+	}
+
+	/**
+	 * Climbs from the pinboard without connections and from random pinboards and returns the best pinboard found. The
+	 * climbs run in parallel, the result only depends on the random pinboards.
+	 *
+	 * @param maxPairs the largest number of connected pairs
+	 * @param restarts the number of random pinboards to start from
+	 * @param random   chooses the random pinboards
+	 * @return the output alphabet of the best pinboard
+	 */
+	public Alphabet solve(final int maxPairs, int restarts, Random random) {
+		// all starts are chosen in this thread, so the threads don't change which pinboards are tried
+		final List<RecursiveTask<int[]>> climbs = new ArrayList<RecursiveTask<int[]>>();
+		for(int i = 0; i <= restarts; i++) {
+			final int[] start = i == 0 ? identity() : randomBoard(maxPairs, random);
+			climbs.add(new RecursiveTask<int[]>() {
+				@Override
+				protected int[] compute() {
+					return climb(start, maxPairs);
+				}
+			});
+		}
+		RecursiveAction all = new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(climbs);
+			}
+		};
+		// if we're already running in a pool, just fork into that pool
+		if(ForkJoinTask.inForkJoinPool()) {
+			all.invoke();
+		} else {
+			SharedForkJoinPool.get().invoke(all);
+		}
+
+		// the first of the best pinboards, in the order of the starts
+		int[] best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for(RecursiveTask<int[]> climb : climbs) {
+			int[] board = climb.join();
+			double boardScore = score(board);
+			if(best == null || boardScore > bestScore) {
+				best = board;
+				bestScore = boardScore;
+			}
+		}
+		return toAlphabet(best);
+	}
+
+	/**
+	 * Climbs from the given pinboard until no connection of two characters makes the score better
+	 *
+	 * @param start    start[i] is the index the i-th character is connected to, this array isn't changed
+	 * @param maxPairs the largest number of connected pairs
+	 * @return the pinboard at the top of the hill
+	 */
+	public int[] climb(int[] start, int maxPairs) {
+		return new Climber(start).climb(maxPairs);
+	}
+
+	/**
+	 * Rates the decryption with a pinboard
+	 *
+	 * @param board board[i] is the index the i-th character is connected to
+	 * @return the score of the decryption
+	 */
+	public double score(int[] board) {
+		return new Climber(board).total;
+	}
+
+	/**
+	 * @return the pinboard without connections
+	 */
+	public int[] identity() {
+		int[] ret = new int[n];
+		for(int i = 0; i < n; i++) {
+			ret[i] = i;
+		}
+		return ret;
+	}
+
+	/**
+	 * @param board board[i] is the index the i-th character is connected to
+	 * @return the output alphabet of the pinboard
+	 */
+	public Alphabet toAlphabet(int[] board) {
+		char[] ret = new char[n];
+		for(int i = 0; i < n; i++) {
+			ret[i] = alphabet.getChar(board[i]);
+		}
+		return new AlphabetImpl(new String(ret));
+	}
+
+	/**
+	 * @param pinBoard the output alphabet of a pinboard
+	 * @return board[i] is the index the i-th character is connected to
+	 */
+	public int[] toBoard(Alphabet pinBoard) {
+		int[] ret = new int[n];
+		for(int i = 0; i < n; i++) {
+			ret[i] = alphabet.getIndex(pinBoard.getChar(i));
+		}
+		return ret;
+	}
+
+	/**
+	 * @return a pinboard with maxPairs random connections
+	 */
+	protected int[] randomBoard(int maxPairs, Random random) {
+		int[] ret = identity();
+		for(int k = 0; k < maxPairs; k++) {
+			int a = random.nextInt(n);
+			int b = random.nextInt(n);
+			if(a != b && ret[a] == a && ret[b] == b) {
+				ret[a] = b;
+				ret[b] = a;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * The state of one climb: the pinboard, the decryption with it and its score
+	 */
+	private class Climber {
+		/**
+		 * board[i] is the index the i-th character is connected to
+		 */
+		private final int[] board;
+
+		/**
+		 * the decryption with the board
+		 */
+		private final int[] plain;
+
+		/**
+		 * the score of the decryption
+		 */
+		private double total;
+
+		/**
+		 * the number of connected pairs
+		 */
+		private int pairs;
+
+		/**
+		 * the characters the current change touches
+		 */
+		private final boolean[] changed;
+
+		/**
+		 * the board before the current change
+		 */
+		private final int[] savedBoard;
+
+		/**
+		 * the positions the current change touches and their old characters
+		 */
+		private final int[] touched;
+
+		/**
+		 * the old characters of the touched positions
+		 */
+		private final int[] touchedOld;
+
+		/**
+		 * the n-grams already counted for the current change, by the position of their last character
+		 */
+		private final int[] windowStamp;
+
+		/**
+		 * counts up with every change, marks the n-grams of the current change in windowStamp
+		 */
+		private int stamp;
+
+		/**
+		 * Decrypts the ciphertext with the start board
+		 *
+		 * @param start the board to start with
+		 */
+		Climber(int[] start) {
+			board = start.clone();
+			savedBoard = new int[n];
+			changed = new boolean[n];
+			plain = new int[ciphertext.length];
+			touched = new int[ciphertext.length];
+			touchedOld = new int[ciphertext.length];
+			windowStamp = new int[ciphertext.length];
+			for(int i = 0; i < n; i++) {
+				if(board[i] > i) {
+					pairs++;
+				}
+			}
+			for(int t = 0; t < plain.length; t++) {
+				plain[t] = decrypt(t);
+			}
+			total = score.score(plain, plain.length);
+		}
+
+		/**
+		 * tries every connection until none makes the score better
+		 *
+		 * @return the board
+		 */
+		int[] climb(int maxPairs) {
+			boolean improved = true;
+			while(improved) {
+				improved = false;
+				for(int a = 0; a < n; a++) {
+					for(int b = a + 1; b < n; b++) {
+						if(tryConnect(a, b, maxPairs)) {
+							improved = true;
+						}
+					}
+				}
+			}
+			return board.clone();
+		}
+
+		/**
+		 * Connects a and b, or disconnects them if they are connected, and keeps the change if the score gets better
+		 *
+		 * @return true if the change was kept
+		 */
+		private boolean tryConnect(int a, int b, int maxPairs) {
+			System.arraycopy(board, 0, savedBoard, 0, n);
+			int oldPairs = pairs;
+			if(board[a] == b) {
+				disconnect(a);
+			} else {
+				disconnect(a);
+				disconnect(b);
+				board[a] = b;
+				board[b] = a;
+				pairs++;
+				if(pairs > maxPairs) {
+					System.arraycopy(savedBoard, 0, board, 0, n);
+					pairs = oldPairs;
+					return false;
+				}
+			}
+
+			// the characters whose connection changed
+			for(int i = 0; i < n; i++) {
+				changed[i] = board[i] != savedBoard[i];
+			}
+
+			// decrypt the positions the change touches again
+			int count = 0;
+			for(int t = 0; t < plain.length; t++) {
+				int c = ciphertext[t];
+				if(changed[c] || changed[scrambler[t * n + savedBoard[c]]] || changed[scrambler[t * n + board[c]]]) {
+					touched[count] = t;
+					touchedOld[count] = plain[t];
+					count++;
+				}
+			}
+
+			// the difference of the score is the difference of the n-grams around the touched positions
+			double delta = -windows(count);
+			for(int k = 0; k < count; k++) {
+				plain[touched[k]] = decrypt(touched[k]);
+			}
+			delta += windows(count);
+
+			if(delta > 0) {
+				total += delta;
+				return true;
+			}
+			// go back
+			for(int k = 0; k < count; k++) {
+				plain[touched[k]] = touchedOld[k];
+			}
+			System.arraycopy(savedBoard, 0, board, 0, n);
+			pairs = oldPairs;
+			return false;
+		}
+
+		/**
+		 * @return the sum of the scores of all n-grams that contain one of the first count touched positions
+		 */
+		private double windows(int count) {
+			stamp++;
+			double ret = 0;
+			int length = score.getLength();
+			for(int k = 0; k < count; k++) {
+				int t = touched[k];
+				for(int end = Math.max(t, length - 1); end < Math.min(plain.length, t + length); end++) {
+					if(windowStamp[end] != stamp) {
+						windowStamp[end] = stamp;
+						ret += score.scoreAt(plain, end);
+					}
+				}
+			}
+			return ret;
+		}
+
+		/**
+		 * removes the connection of a
+		 */
+		private void disconnect(int a) {
+			if(board[a] != a) {
+				board[board[a]] = board[a];
+				board[a] = a;
+				pairs--;
+			}
+		}
+
+		/**
+		 * @return the decryption of position t with the board
+		 */
+		private int decrypt(int t) {
+			return board[scrambler[t * n + board[ciphertext[t]]]];
+		}
+	}
+}
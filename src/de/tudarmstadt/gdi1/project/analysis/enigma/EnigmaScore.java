@@ -0,0 +1,25 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+/**
+ * Rates how much a decryption looks like a real text. The text is given as indices in the alphabet of the key space,
+ * so scoring doesn't have to create strings.
+ * <p/>
+ * A score may keep space for counting between calls, so it must only be used by one thread. The searches call
+ * {@link #copy()} for every thread.
+ */
+public interface EnigmaScore {
+
+	/**
+	 * Rates a text
+	 *
+	 * @param text the characters of the text as indices in the alphabet
+	 * @param len  the number of characters
+	 * @return the score, higher is better
+	 */
+	double score(int[] text, int len);
+
+	/**
+	 * @return a score that rates the same way and can be used by another thread
+	 */
+	EnigmaScore copy();
+}
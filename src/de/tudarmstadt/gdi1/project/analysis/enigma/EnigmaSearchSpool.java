@@ -0,0 +1,621 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.alphabet.DistributionImpl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A directory through which the search of an {@link EnigmaKeySpace} is split over several processes on the same
+ * machine. The key space is cut into contiguous shards, see {@link EnigmaKeySpace#shard(int, int)}, and every shard is
+ * a file that moves through three subdirectories:
+ * <ul>
+ * <li>todo: nobody works on the shard</li>
+ * <li>running: a worker claimed the shard by moving it here and holds a lock on it while it searches</li>
+ * <li>done: the best settings of the shard, as ranks and scores</li>
+ * </ul>
+ * Moving a file inside the directory is atomic, so two workers never claim the same shard. The done directory is the
+ * checkpoint: creating the spool again on the same directory only hands out the shards that aren't done, and
+ * {@link #recover()} puts the shards of workers that died, whose locks the operating system has dropped, back to todo.
+ * <p/>
+ * The file {@link #JOB_FILE} describes the search, so every process can rebuild the key space, the ciphertext and the
+ * score from the directory alone. {@link EnigmaSearchWorker} is the worker side.
+ */
+public class EnigmaSearchSpool {
+
+	/**
+	 * the name of the file that describes the search
+	 */
+	public static final String JOB_FILE = "job.properties";
+
+	/**
+	 * the subdirectory of the shards nobody works on
+	 */
+	protected static final String TODO = "todo";
+
+	/**
+	 * the subdirectory of the shards that are searched right now
+	 */
+	protected static final String RUNNING = "running";
+
+	/**
+	 * the subdirectory of the results of the finished shards
+	 */
+	protected static final String DONE = "done";
+
+	/**
+	 * the names of all shard files start with this
+	 */
+	protected static final String SHARD_PREFIX = "shard-";
+
+	/**
+	 * the directory
+	 */
+	protected final File directory;
+
+	/**
+	 * the description of the search, as it is stored in the job file
+	 */
+	protected final Properties job;
+
+	/**
+	 * the settings to try
+	 */
+	protected final EnigmaKeySpace keySpace;
+
+	/**
+	 * the ciphertext as indices in the alphabet
+	 */
+	protected final int[] ciphertext;
+
+	/**
+	 * a text in the language of the plaintext the n-gram score learns from, or null to score by the index of
+	 * coincidence
+	 */
+	protected final String reference;
+
+	/**
+	 * the number of settings every shard returns
+	 */
+	protected final int topK;
+
+	/**
+	 * the number of shards the key space is cut into
+	 */
+	protected final int shardCount;
+
+	/**
+	 * Reads the description of a search
+	 *
+	 * @param directory the directory of the search
+	 * @param job       the description
+	 */
+	protected EnigmaSearchSpool(File directory, Properties job) {
+		this.directory = directory;
+		this.job = job;
+
+		Alphabet alphabet = new AlphabetImpl(job.getProperty("alphabet"));
+		List<Alphabet> rotorAlphabets = new ArrayList<Alphabet>();
+		for(int i = 0; i < Integer.parseInt(job.getProperty("rotors")); i++) {
+			rotorAlphabets.add(new AlphabetImpl(job.getProperty("rotor." + i)));
+		}
+		List<Alphabet> reflectorAlphabets = new ArrayList<Alphabet>();
+		for(int i = 0; i < Integer.parseInt(job.getProperty("reflectors")); i++) {
+			reflectorAlphabets.add(new AlphabetImpl(job.getProperty("reflector." + i)));
+		}
+		this.keySpace = new EnigmaKeySpace(alphabet, rotorAlphabets, reflectorAlphabets, Integer.parseInt(job.getProperty("rotorCount")));
+		this.ciphertext = keySpace.toIndices(job.getProperty("ciphertext"));
+		this.reference = job.getProperty("reference");
+		this.topK = Integer.parseInt(job.getProperty("topK"));
+		this.shardCount = Integer.parseInt(job.getProperty("shards"));
+	}
+
+	/**
+	 * Creates a search in the directory, or continues the search that is already there. Every shard that is neither
+	 * done nor running is put into todo.
+	 *
+	 * @param directory  the directory of the search, it is created if it doesn't exist
+	 * @param keySpace   the settings to try
+	 * @param ciphertext the ciphertext
+	 * @param reference  a text in the language of the plaintext the n-gram score learns from, or null to score by the
+	 *                   index of coincidence
+	 * @param topK       the number of settings every shard and the whole search return
+	 * @param shardCount the number of shards the key space is cut into
+	 * @return the spool
+	 * @throws IOException if the directory can't be written
+	 * @throws IllegalArgumentException if the directory belongs to a different search
+	 */
+	public static EnigmaSearchSpool create(File directory, EnigmaKeySpace keySpace, String ciphertext, String reference,
+			int topK, int shardCount) throws IOException {
+		if(topK < 1) {
+			throw new IllegalArgumentException("At least one setting has to be returned");
+		}
+		if(shardCount < 1) {
+			throw new IllegalArgumentException("The key space has to be cut into at least one shard");
+		}
+		// the alphabets are stored as their characters, the rebuilt key space checks them again
+		Properties job = new Properties();
+		job.setProperty("alphabet", new String(keySpace.getAlphabet().asCharArray()));
+		job.setProperty("rotors", Integer.toString(keySpace.getRotorAlphabets().size()));
+		for(int i = 0; i < keySpace.getRotorAlphabets().size(); i++) {
+			job.setProperty("rotor." + i, new String(keySpace.getRotorAlphabets().get(i).asCharArray()));
+		}
+		job.setProperty("reflectors", Integer.toString(keySpace.getReflectorAlphabets().size()));
+		for(int i = 0; i < keySpace.getReflectorAlphabets().size(); i++) {
+			job.setProperty("reflector." + i, new String(keySpace.getReflectorAlphabets().get(i).asCharArray()));
+		}
+		job.setProperty("rotorCount", Integer.toString(keySpace.getRotorCount()));
+		job.setProperty("ciphertext", ciphertext);
+		if(reference != null) {
+			job.setProperty("reference", reference);
+		}
+		job.setProperty("topK", Integer.toString(topK));
+		job.setProperty("shards", Integer.toString(shardCount));
+
+		File jobFile = new File(directory, JOB_FILE);
+		if(jobFile.exists()) {
+			// continue the search, but never mix the results of two different searches
+			if(!load(jobFile).equals(job)) {
+				throw new IllegalArgumentException(directory + " already holds a different search");
+			}
+		} else {
+			mkdirs(directory);
+			store(directory, jobFile, job);
+		}
+		mkdirs(new File(directory, TODO));
+		mkdirs(new File(directory, RUNNING));
+		mkdirs(new File(directory, DONE));
+
+		EnigmaSearchSpool spool = new EnigmaSearchSpool(directory, job);
+		for(int i = 0; i < shardCount; i++) {
+			String name = shardName(i);
+			if(!spool.file(TODO, name).exists() && !spool.file(RUNNING, name).exists() && !spool.file(DONE, name).exists()) {
+				EnigmaKeySpace.Slice slice = keySpace.shard(i, shardCount);
+				Properties shard = new Properties();
+				shard.setProperty("from", Long.toString(slice.getFrom()));
+				shard.setProperty("to", Long.toString(slice.getTo()));
+				store(directory, spool.file(TODO, name), shard);
+			}
+		}
+		return spool;
+	}
+
+	/**
+	 * Opens a search that was created with {@link #create(File, EnigmaKeySpace, String, String, int, int)}, for
+	 * example in another process
+	 *
+	 * @param directory the directory of the search
+	 * @return the spool
+	 * @throws IOException if the job file can't be read
+	 */
+	public static EnigmaSearchSpool open(File directory) throws IOException {
+		return new EnigmaSearchSpool(directory, load(new File(directory, JOB_FILE)));
+	}
+
+	/**
+	 * @return the directory of the search
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return the settings to try
+	 */
+	public EnigmaKeySpace getKeySpace() {
+		return keySpace;
+	}
+
+	/**
+	 * @return the ciphertext as indices in the alphabet
+	 */
+	public int[] getCiphertext() {
+		return ciphertext.clone();
+	}
+
+	/**
+	 * @return the number of settings every shard and the whole search return
+	 */
+	public int getTopK() {
+		return topK;
+	}
+
+	/**
+	 * @return the number of shards the key space is cut into
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * @return a new score for the decryptions, an n-gram score if the search has a reference text
+	 */
+	public EnigmaScore createScore() {
+		if(reference == null) {
+			return new IndexOfCoincidenceScore(keySpace.getAlphabet().size());
+		}
+		return new NgramScore(new DistributionImpl(keySpace.getAlphabet(), reference, NgramScore.MAX_LENGTH));
+	}
+
+	/**
+	 * Claims a shard that nobody works on. The shard stays claimed until it is completed or released, or until the
+	 * process dies.
+	 *
+	 * @return the shard, or null if there is nothing left to do
+	 * @throws IOException if the directory can't be written
+	 */
+	public Shard claim() throws IOException {
+		for(String name : list(TODO)) {
+			File running = file(RUNNING, name);
+			try {
+				Files.move(file(TODO, name).toPath(), running.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch(NoSuchFileException e) {
+				// another worker was faster
+				continue;
+			}
+			FileChannel channel;
+			try {
+				channel = FileChannel.open(running.toPath(), StandardOpenOption.WRITE);
+			} catch(NoSuchFileException e) {
+				// recover() took it back before it was locked
+				continue;
+			}
+			FileLock lock;
+			try {
+				lock = channel.tryLock();
+			} catch(OverlappingFileLockException e) {
+				lock = null;
+			}
+			if(lock == null) {
+				// recover() is looking at it, in this or another process. Waiting for the lock could block for as long
+				// as recover() takes, so the shard stays where it is until recover() runs again
+				channel.close();
+				continue;
+			}
+			return new Shard(Integer.parseInt(name.substring(SHARD_PREFIX.length())), channel, lock);
+		}
+		return null;
+	}
+
+	/**
+	 * Puts every running shard whose worker is gone back to todo, so another worker searches it again. A shard is
+	 * running as long as the lock of its worker is held. Shards that are done already are only cleaned up.
+	 *
+	 * @return the number of shards that were put back
+	 * @throws IOException if the directory can't be written
+	 */
+	public int recover() throws IOException {
+		int ret = 0;
+		for(String name : list(RUNNING)) {
+			File running = file(RUNNING, name);
+			if(file(DONE, name).exists()) {
+				// the worker finished, but didn't get to delete its claim
+				Files.deleteIfExists(running.toPath());
+				continue;
+			}
+			FileChannel channel;
+			try {
+				channel = FileChannel.open(running.toPath(), StandardOpenOption.WRITE);
+			} catch(NoSuchFileException e) {
+				continue;
+			}
+			try {
+				FileLock lock;
+				try {
+					lock = channel.tryLock();
+				} catch(OverlappingFileLockException e) {
+					// a worker in this process holds the lock
+					continue;
+				}
+				if(lock == null) {
+					// a worker in another process holds the lock
+					continue;
+				}
+				lock.release();
+			} finally {
+				channel.close();
+			}
+			try {
+				Files.move(running.toPath(), file(TODO, name).toPath(), StandardCopyOption.ATOMIC_MOVE);
+				ret++;
+			} catch(NoSuchFileException e) {
+				// finished meanwhile
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the number of shards that are done
+	 */
+	public int getDoneCount() {
+		return list(DONE).size();
+	}
+
+	/**
+	 * @return true if every shard is done
+	 */
+	public boolean isFinished() {
+		return getDoneCount() == shardCount;
+	}
+
+	/**
+	 * Merges the results of all shards that are done so far
+	 *
+	 * @return the best settings, best first
+	 * @throws IOException if a result can't be read
+	 */
+	public List<EnigmaSetting> getResults() throws IOException {
+		List<EnigmaSetting> ret = new ArrayList<EnigmaSetting>();
+		for(String name : list(DONE)) {
+			ret = EnigmaKeySpaceSearch.merge(ret, readResults(file(DONE, name)), topK);
+		}
+		return ret;
+	}
+
+	/**
+	 * Starts a worker process, a JVM with the class path of this one that runs {@link EnigmaSearchWorker} on this
+	 * directory. Its output goes to the output of this process.
+	 *
+	 * @return the process
+	 * @throws IOException if the process can't be started
+	 */
+	public Process startWorker() throws IOException {
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				EnigmaSearchWorker.class.getName(), directory.getAbsolutePath());
+		builder.inheritIO();
+		return builder.start();
+	}
+
+	/**
+	 * Runs the search with the given number of worker processes until every shard is done. Shards of workers that
+	 * die are handed out again, as long as every round of workers finishes at least one shard.
+	 *
+	 * @param processes the number of worker processes
+	 * @return the best settings, best first
+	 * @throws IOException if the directory can't be used or the workers stop without finishing the search
+	 * @throws InterruptedException if the thread is interrupted while waiting for the workers
+	 */
+	public List<EnigmaSetting> search(int processes) throws IOException, InterruptedException {
+		while(!isFinished()) {
+			recover();
+			int done = getDoneCount();
+			List<Process> workers = new ArrayList<Process>();
+			for(int i = 0; i < processes; i++) {
+				workers.add(startWorker());
+			}
+			for(Process worker : workers) {
+				worker.waitFor();
+			}
+			if(getDoneCount() == done) {
+				throw new IOException("The workers stopped without finishing a shard of " + directory);
+			}
+		}
+		return getResults();
+	}
+
+	/**
+	 * @return the file of a shard in a subdirectory
+	 */
+	protected File file(String subdirectory, String name) {
+		return new File(new File(directory, subdirectory), name);
+	}
+
+	/**
+	 * @return the names of the shard files in a subdirectory, in the order of the shards
+	 */
+	protected List<String> list(String subdirectory) {
+		List<String> ret = new ArrayList<String>();
+		String[] names = new File(directory, subdirectory).list();
+		if(names != null) {
+			for(String name : names) {
+				if(name.startsWith(SHARD_PREFIX)) {
+					ret.add(name);
+				}
+			}
+		}
+		// the names have the same length, so they sort like the indices
+		String[] sorted = ret.toArray(new String[ret.size()]);
+		Arrays.sort(sorted);
+		return Arrays.asList(sorted);
+	}
+
+	/**
+	 * Reads the settings of a result file
+	 *
+	 * @param file the file
+	 * @return the settings, best first
+	 * @throws IOException if the file can't be read
+	 */
+	protected List<EnigmaSetting> readResults(File file) throws IOException {
+		Properties results = load(file);
+		List<EnigmaSetting> ret = new ArrayList<EnigmaSetting>();
+		for(int i = 0; i < Integer.parseInt(results.getProperty("results")); i++) {
+			// every entry is "rank score"
+			String[] entry = results.getProperty("result." + i).split(" ");
+			EnigmaSetting setting = keySpace.settingAt(Long.parseLong(entry[0]));
+			ret.add(new EnigmaSetting(setting.getRotorOrder(), setting.getStartPositions(), setting.getReflector(),
+					Double.parseDouble(entry[1])));
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the name of the file of the shard with the given index
+	 */
+	protected static String shardName(int index) {
+		return String.format("%s%06d", SHARD_PREFIX, index);
+	}
+
+	/**
+	 * Creates a directory and its parents
+	 *
+	 * @param directory the directory
+	 * @throws IOException if it can't be created
+	 */
+	protected static void mkdirs(File directory) throws IOException {
+		if(!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't create " + directory);
+		}
+	}
+
+	/**
+	 * Reads a properties file
+	 *
+	 * @param file the file
+	 * @return its properties
+	 * @throws IOException if the file can't be read
+	 */
+	protected static Properties load(File file) throws IOException {
+		Properties ret = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			ret.load(in);
+		} finally {
+			in.close();
+		}
+		return ret;
+	}
+
+	/**
+	 * Writes a properties file atomically: the properties go into a temporary file in the directory, which is then
+	 * moved to its place, so other processes either see the whole file or none
+	 *
+	 * @param directory  the directory of the search
+	 * @param file       the file
+	 * @param properties the properties
+	 * @throws IOException if the file can't be written
+	 */
+	protected static void store(File directory, File file, Properties properties) throws IOException {
+		File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+		try {
+			OutputStream out = new FileOutputStream(tmp);
+			try {
+				properties.store(out, null);
+			} finally {
+				out.close();
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	/**
+	 * A shard claimed by a worker of this process
+	 */
+	public class Shard {
+
+		/**
+		 * the index of the shard
+		 */
+		protected final int index;
+
+		/**
+		 * the settings of the shard
+		 */
+		protected final EnigmaKeySpace.Slice slice;
+
+		/**
+		 * the open file of the claim
+		 */
+		protected final FileChannel channel;
+
+		/**
+		 * the lock that shows the shard is being searched
+		 */
+		protected final FileLock lock;
+
+		/**
+		 * Creates a claimed shard
+		 *
+		 * @param index   the index of the shard
+		 * @param channel the open file of the claim
+		 * @param lock    the lock on it
+		 */
+		protected Shard(int index, FileChannel channel, FileLock lock) {
+			this.index = index;
+			this.slice = keySpace.shard(index, shardCount);
+			this.channel = channel;
+			this.lock = lock;
+		}
+
+		/**
+		 * @return the index of the shard
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return the settings of the shard
+		 */
+		public EnigmaKeySpace.Slice getSlice() {
+			return slice;
+		}
+
+		/**
+		 * Stores the best settings of the shard and marks it as done
+		 *
+		 * @param results the best settings of the shard
+		 * @throws IOException if the result can't be written
+		 */
+		public void complete(List<EnigmaSetting> results) throws IOException {
+			Properties properties = new Properties();
+			properties.setProperty("from", Long.toString(slice.getFrom()));
+			properties.setProperty("to", Long.toString(slice.getTo()));
+			properties.setProperty("results", Integer.toString(results.size()));
+			for(int i = 0; i < results.size(); i++) {
+				properties.setProperty("result." + i, keySpace.rankOf(results.get(i)) + " " + results.get(i).getScore());
+			}
+			store(directory, file(DONE, shardName(index)), properties);
+			unlock();
+			Files.deleteIfExists(file(RUNNING, shardName(index)).toPath());
+		}
+
+		/**
+		 * Gives the shard back without results, so another worker searches it
+		 *
+		 * @throws IOException if the shard can't be moved back
+		 */
+		public void release() throws IOException {
+			unlock();
+			try {
+				Files.move(file(RUNNING, shardName(index)).toPath(), file(TODO, shardName(index)).toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch(NoSuchFileException e) {
+				// recover() already put it back
+			}
+		}
+
+		/**
+		 * Drops the lock and closes the file of the claim
+		 *
+		 * @throws IOException if the file can't be closed
+		 */
+		private void unlock() throws IOException {
+			try {
+				lock.release();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The worker side of an {@link EnigmaSearchSpool}: claims one shard after the other, searches it on all cores of the
+ * shared pool and stores its best settings, until no shard is left. Several workers, in this or in other processes,
+ * can work on the same spool.
+ * <p/>
+ * Usage as a process: {@code java de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaSearchWorker <directory>}
+ */
+public class EnigmaSearchWorker {
+
+	/**
+	 * the search
+	 */
+	protected final EnigmaSearchSpool spool;
+
+	/**
+	 * Creates a worker
+	 *
+	 * @param spool the search
+	 */
+	public EnigmaSearchWorker(EnigmaSearchSpool spool) {
+		this.spool = spool;
+	}
+
+	/**
+	 * Searches shards until no shard is left in todo
+	 *
+	 * @return the number of shards this worker searched
+	 * @throws IOException if the spool can't be used
+	 */
+	public int work() throws IOException {
+		int[] ciphertext = spool.getCiphertext();
+		// the score is built once, the searches copy it for every thread
+		EnigmaScore score = spool.createScore();
+		int ret = 0;
+		EnigmaSearchSpool.Shard shard;
+		while((shard = spool.claim()) != null) {
+			List<EnigmaSetting> results;
+			try {
+				EnigmaKeySpace.Slice slice = shard.getSlice();
+				results = SharedForkJoinPool.get().invoke(new EnigmaKeySpaceSearch(spool.getKeySpace(), slice.getFrom(),
+						slice.getTo(), ciphertext, score, spool.getTopK()));
+			} catch(RuntimeException e) {
+				// let another worker try again
+				shard.release();
+				throw e;
+			}
+			shard.complete(results);
+			ret++;
+		}
+		return ret;
+	}
+
+	/**
+	 * Works on the spool in the given directory
+	 *
+	 * @param args the directory of the spool
+	 * @throws IOException if the spool can't be used
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length != 1) {
+			System.err.println("Usage: java " + EnigmaSearchWorker.class.getName() + " <directory>");
+			System.exit(2);
+		}
+		new EnigmaSearchWorker(EnigmaSearchSpool.open(new File(args[0]))).work();
+	}
+}
@@ -0,0 +1,115 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import java.util.Arrays;
+
+/**
+ * A setting of an enigma found by an attack: which rotors of an {@link EnigmaKeySpace} are used in which order, where
+ * they start and which reverse rotor is used, together with the score the decryption got.
+ */
+public class EnigmaSetting {
+
+	/**
+	 * the indices of the used rotors in the list of the key space, in the order a character passes them
+	 */
+	protected final int[] rotorOrder;
+
+	/**
+	 * the start position of every used rotor
+	 */
+	protected final int[] startPositions;
+
+	/**
+	 * the index of the used reverse rotor in the list of the key space
+	 */
+	protected final int reflector;
+
+	/**
+	 * the score of the decryption with this setting, higher is better
+	 */
+	protected final double score;
+
+	/**
+	 * Creates a setting with the first reverse rotor of the key space
+	 *
+	 * @param rotorOrder     the indices of the used rotors in the list of the key space
+	 * @param startPositions the start position of every used rotor
+	 * @param score          the score of the decryption with this setting
+	 */
+	public EnigmaSetting(int[] rotorOrder, int[] startPositions, double score) {
+		this(rotorOrder, startPositions, 0, score);
+	}
+
+	/**
+	 * Creates a setting
+	 *
+	 * @param rotorOrder     the indices of the used rotors in the list of the key space
+	 * @param startPositions the start position of every used rotor
+	 * @param reflector      the index of the used reverse rotor in the list of the key space
+	 * @param score          the score of the decryption with this setting
+	 */
+	public EnigmaSetting(int[] rotorOrder, int[] startPositions, int reflector, double score) {
+		this.rotorOrder = rotorOrder.clone();
+		this.startPositions = startPositions.clone();
+		this.reflector = reflector;
+		this.score = score;
+	}
+
+	/**
+	 * @return the indices of the used rotors in the list of the key space, in the order a character passes them
+	 */
+	public int[] getRotorOrder() {
+		return rotorOrder.clone();
+	}
+
+	/**
+	 * @return the start position of every used rotor
+	 */
+	public int[] getStartPositions() {
+		return startPositions.clone();
+	}
+
+	/**
+	 * @return the index of the used reverse rotor in the list of the key space
+	 */
+	public int getReflector() {
+		return reflector;
+	}
+
+	/**
+	 * @return the score of the decryption with this setting, higher is better
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * Two settings are equal if they use the same rotors in the same order and start positions and the same reverse
+	 * rotor, the score doesn't matter
+	 *
+	 * @param obj the other setting
+	 * @return true if both settings are equal
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof EnigmaSetting)) {
+			return false;
+		}
+		EnigmaSetting other = (EnigmaSetting) obj;
+		return reflector == other.reflector && Arrays.equals(rotorOrder, other.rotorOrder)
+				&& Arrays.equals(startPositions, other.startPositions);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * reflector + Arrays.hashCode(rotorOrder)) + Arrays.hashCode(startPositions);
+	}
+
+	/**
+	 * @return a string like "rotors [2, 0, 1] at [3, 25, 7] with reflector 0 (score -123.4)"
+	 */
+	@Override
+	public String toString() {
+		return "rotors " + Arrays.toString(rotorOrder) + " at " + Arrays.toString(startPositions) + " with reflector " + reflector
+				+ " (score " + score + ")";
+	}
+}
@@ -0,0 +1,47 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+/**
+ * Rates a text by its index of coincidence, the probability that two characters picked from the text are the same.
+ * Natural language has a much higher index than random text, and it doesn't depend on which language it is.
+ */
+public class IndexOfCoincidenceScore implements EnigmaScore {
+
+	/**
+	 * how often every character appears, reused by every call
+	 */
+	protected final int[] counts;
+
+	/**
+	 * Creates the score
+	 *
+	 * @param alphabetSize the size of the alphabet
+	 */
+	public IndexOfCoincidenceScore(int alphabetSize) {
+		this.counts = new int[alphabetSize];
+	}
+
+	@Override
+	public double score(int[] text, int len) {
+		if(len < 2) {
+			return 0;
+		}
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		for(int i = 0; i < len; i++) {
+			counts[text[i]]++;
+		}
+
+		// the number of pairs of equal characters divided by the number of all pairs
+		long pairs = 0;
+		for(int count : counts) {
+			pairs += (long) count * (count - 1);
+		}
+		return (double) pairs / ((long) len * (len - 1));
+	}
+
+	@Override
+	public EnigmaScore copy() {
+		return new IndexOfCoincidenceScore(counts.length);
+	}
+}
@@ -0,0 +1,215 @@
+package de.tudarmstadt.gdi1.project.analysis.enigma;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.Distribution;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rates a text by the log probability of its n-grams according to a distribution. The higher the score, the more the
+ * text looks like the texts the distribution learned.
+ * <p/>
+ * The log probabilities of all n-grams are computed once and kept in a table indexed like a number in base
+ * alphabet size, so rating a text is one table lookup per character. The table never changes, so all threads can
+ * share it.
+ */
+public class NgramScore implements EnigmaScore {
+
+	/**
+	 * the largest n-grams that are used, the table has alphabet size ^ n entries
+	 */
+	public static final int MAX_LENGTH = 3;
+
+	/**
+	 * the length of the n-grams
+	 */
+	protected final int length;
+
+	/**
+	 * the size of the alphabet
+	 */
+	protected final int alphabetSize;
+
+	/**
+	 * alphabet size ^ length, the number of different n-grams
+	 */
+	protected final int count;
+
+	/**
+	 * the log probability of every n-gram. Unseen n-grams get a probability a lot lower than the rarest seen one.
+	 */
+	protected final double[] table;
+
+	/**
+	 * Creates the score with the longest n-grams the distribution learned, up to {@link #MAX_LENGTH} and as long as
+	 * their indices fit into an int, see {@link #fits(int, int)}
+	 *
+	 * @param distribution the distribution of the language of the plaintext
+	 */
+	public NgramScore(Distribution distribution) {
+		this(distribution, longestLength(distribution));
+	}
+
+	/**
+	 * Creates the score
+	 *
+	 * @param distribution the distribution of the language of the plaintext
+	 * @param length       the length of the n-grams
+	 * @throws IllegalArgumentException if length is less than 1 or the indices of the n-grams don't fit into an int
+	 */
+	public NgramScore(Distribution distribution, int length) {
+		Alphabet alphabet = distribution.getAlphabet();
+		if(length < 1) {
+			throw new IllegalArgumentException("The n-grams need at least one character");
+		}
+		if(!fits(alphabet.size(), length)) {
+			throw new IllegalArgumentException("n-grams of " + length + " characters of an alphabet with " + alphabet.size() + " characters have too many indices");
+		}
+		this.length = length;
+		this.alphabetSize = alphabet.size();
+		int entries = 1;
+		for(int i = 0; i < length; i++) {
+			entries *= alphabetSize;
+		}
+		this.count = entries;
+		this.table = new double[count];
+
+		// look up every n-gram the distribution has seen and find the rarest one
+		double min = 1;
+		double[] frequencies = new double[count];
+		List<String> grams = distribution.getSorted(length);
+		for(String gram : grams == null ? Collections.<String>emptyList() : grams) {
+			int index = toIndex(alphabet, gram);
+			if(index == -1) {
+				continue;
+			}
+			frequencies[index] = distribution.getFrequency(gram);
+			if(frequencies[index] > 0) {
+				min = Math.min(min, frequencies[index]);
+			}
+		}
+
+		double floor = Math.log(min / 10);
+		Arrays.fill(table, floor);
+		for(int i = 0; i < count; i++) {
+			if(frequencies[i] > 0) {
+				table[i] = Math.log(frequencies[i]);
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy that shares the table
+	 *
+	 * @param other the score to copy
+	 */
+	protected NgramScore(NgramScore other) {
+		this.length = other.length;
+		this.alphabetSize = other.alphabetSize;
+		this.count = other.count;
+		this.table = other.table;
+	}
+
+	@Override
+	public double score(int[] text, int len) {
+		double ret = 0;
+		int index = 0;
+		for(int i = 0; i < len; i++) {
+			// shift the next character into the n-gram and drop the oldest one
+			index = (index * alphabetSize + text[i]) % count;
+			if(i >= length - 1) {
+				ret += table[index];
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Rates the single n-gram that ends at the given position, so a score can be updated when only a few characters
+	 * of a text change
+	 *
+	 * @param text the characters of the text as indices in the alphabet
+	 * @param end  the position of the last character of the n-gram, at least length - 1
+	 * @return the log probability of the n-gram
+	 */
+	public double scoreAt(int[] text, int end) {
+		int index = 0;
+		for(int i = end - length + 1; i <= end; i++) {
+			index = index * alphabetSize + text[i];
+		}
+		return table[index];
+	}
+
+	@Override
+	public EnigmaScore copy() {
+		// the table never changes, so the score can be shared
+		return this;
+	}
+
+	/**
+	 * @return the length of the n-grams
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @param alphabet the alphabet
+	 * @param gram     an n-gram
+	 * @return the index of the n-gram in the table or -1 if it has characters that aren't part of the alphabet
+	 */
+	private int toIndex(Alphabet alphabet, String gram) {
+		if(gram.length() != length) {
+			return -1;
+		}
+		int index = 0;
+		for(int i = 0; i < length; i++) {
+			int c = alphabet.getIndex(gram.charAt(i));
+			if(c == -1) {
+				return -1;
+			}
+			index = index * alphabetSize + c;
+		}
+		return index;
+	}
+
+	/**
+	 * Checks whether the n-grams of an alphabet can be rated with ints. While rating a text the index of an n-gram is
+	 * multiplied by the size of the alphabet before the oldest character is dropped, so alphabet size ^ (length + 1)
+	 * has to fit.
+	 *
+	 * @param alphabetSize the number of characters of the alphabet
+	 * @param length       the length of the n-grams
+	 * @return true if the indices fit into an int
+	 */
+	public static boolean fits(int alphabetSize, int length) {
+		long entries = 1;
+		for(int i = 0; i <= length; i++) {
+			entries *= alphabetSize;
+			if(entries > Integer.MAX_VALUE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param distribution a distribution
+	 * @return the largest n up to {@link #MAX_LENGTH} for which the distribution learned n-grams and whose indices
+	 * fit into an int
+	 */
+	private static int longestLength(Distribution distribution) {
+		for(int n = MAX_LENGTH; n > 1; n--) {
+			if(!fits(distribution.getAlphabet().size(), n)) {
+				continue;
+			}
+			List<String> grams = distribution.getSorted(n);
+			if(grams != null && !grams.isEmpty()) {
+				return n;
+			}
+		}
+		return 1;
+	}
+}
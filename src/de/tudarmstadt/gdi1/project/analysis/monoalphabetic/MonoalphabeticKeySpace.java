@@ -0,0 +1,349 @@
+package de.tudarmstadt.gdi1.project.analysis.monoalphabetic;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.exception.InvalidKeyException;
+import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * All keys of a monoalphabetic cipher that agree with a (partial) key, numbered in lexicographic order.
+ * <p/>
+ * A key is represented like the result of the known ciphertext attacks: a char array where position i holds the
+ * character the i-th character of the source alphabet is mapped to. The characters of the source alphabet that aren't
+ * fixed by the partial key can be mapped to every character that isn't used by the partial key yet, so the key space
+ * contains m! keys if m characters are free. Every key has a rank between 0 and m! - 1, which makes it possible to split
+ * the key space into disjoint slices that can be searched by different threads or processes.
+ */
+public class MonoalphabeticKeySpace {
+
+	/**
+	 * the source alphabet
+	 */
+	protected final Alphabet alphabet;
+
+	/**
+	 * the key with every character fixed by the partial key filled in
+	 */
+	protected final char[] template;
+
+	/**
+	 * the positions in the source alphabet that aren't fixed by the partial key
+	 */
+	protected final int[] freePositions;
+
+	/**
+	 * the characters that aren't used by the partial key, in the order of the alphabet
+	 */
+	protected final char[] freeTargets;
+
+	/**
+	 * the number of keys in this key space
+	 */
+	protected final long size;
+
+	/**
+	 * utils used for ranking permutations
+	 */
+	protected final UtilsImpl utils = new UtilsImpl();
+
+	/**
+	 * Creates the key space of all keys over the given alphabet
+	 *
+	 * @param alphabet the source alphabet
+	 */
+	public MonoalphabeticKeySpace(Alphabet alphabet) {
+		this(alphabet, null);
+	}
+
+	/**
+	 * Creates the key space of all keys over the given alphabet that agree with the partial key. The partial key is
+	 * stored like in {@link MonoalphabeticCribCryptanalysisImpl}: a character from the source alphabet maps to the
+	 * character from the target alphabet.
+	 *
+	 * @param alphabet   the source alphabet
+	 * @param partialKey the known part of the key, may be null
+	 */
+	public MonoalphabeticKeySpace(Alphabet alphabet, Map<Character, Character> partialKey) {
+		this.alphabet = alphabet;
+		int n = alphabet.size();
+		template = new char[n];
+
+		// put every fixed character into the template and remember which targets are taken
+		boolean[] positionFixed = new boolean[n];
+		boolean[] targetUsed = new boolean[n];
+		int fixed = 0;
+		if(partialKey != null) {
+			for(Map.Entry<Character, Character> entry : partialKey.entrySet()) {
+				int sourceIndex = alphabet.getIndex(entry.getKey());
+				int targetIndex = alphabet.getIndex(entry.getValue());
+				if(sourceIndex == -1 || targetIndex == -1) {
+					throw new InvalidKeyException("The partial key maps '" + entry.getKey() + "' to '" + entry.getValue() + "', which isn't part of the alphabet!");
+				}
+				if(targetUsed[targetIndex]) {
+					throw new InvalidKeyException("The character '" + entry.getValue() + "' is used twice in the partial key!");
+				}
+				template[sourceIndex] = entry.getValue();
+				positionFixed[sourceIndex] = true;
+				targetUsed[targetIndex] = true;
+				fixed++;
+			}
+		}
+
+		// collect the positions and targets that are still free
+		freePositions = new int[n - fixed];
+		freeTargets = new char[n - fixed];
+		int position = 0;
+		int target = 0;
+		for(int i = 0; i < n; i++) {
+			if(!positionFixed[i]) {
+				freePositions[position++] = i;
+			}
+			if(!targetUsed[i]) {
+				freeTargets[target++] = alphabet.getChar(i);
+			}
+		}
+
+		size = utils.factorial(freePositions.length);
+	}
+
+	/**
+	 * @return the number of keys in this key space
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return the source alphabet
+	 */
+	public Alphabet getAlphabet() {
+		return alphabet;
+	}
+
+	/**
+	 * Returns the key with the given rank
+	 *
+	 * @param rank the rank of the key, between 0 and {@link #size()} - 1
+	 * @return the key
+	 */
+	public char[] keyAt(long rank) {
+		return toKey(utils.unrankPermutation(rank, freePositions.length));
+	}
+
+	/**
+	 * Returns the rank of the given key
+	 *
+	 * @param key a key of this key space
+	 * @return the rank of the key
+	 */
+	public long rankOf(char[] key) {
+		if(key.length != template.length) {
+			throw new InvalidKeyException("The key has to be as long as the alphabet!");
+		}
+		// translate the free part of the key into a permutation of the free targets
+		int[] permutation = new int[freePositions.length];
+		for(int i = 0; i < freePositions.length; i++) {
+			permutation[i] = -1;
+			for(int j = 0; j < freeTargets.length; j++) {
+				if(freeTargets[j] == key[freePositions[i]]) {
+					permutation[i] = j;
+					break;
+				}
+			}
+			if(permutation[i] == -1) {
+				throw new InvalidKeyException("The key doesn't agree with the partial key of this key space!");
+			}
+		}
+		return utils.rankPermutation(permutation);
+	}
+
+	/**
+	 * Returns the slice of all keys with a rank in [from, to)
+	 *
+	 * @param from the first rank (inclusive)
+	 * @param to   the last rank (exclusive)
+	 * @return the slice
+	 */
+	public Slice slice(long from, long to) {
+		if(from < 0 || to > size || from > to) {
+			throw new IllegalArgumentException("[" + from + ", " + to + ") isn't a valid range of this key space");
+		}
+		return new Slice(from, to);
+	}
+
+	/**
+	 * Splits the key space into count slices of (almost) the same size and returns the one with the given index.
+	 * Workers that each take a different index search disjoint parts that together cover the whole key space.
+	 *
+	 * @param index the index of the shard, between 0 and count - 1
+	 * @param count the number of shards
+	 * @return the shard
+	 */
+	public Slice shard(int index, int count) {
+		if(count <= 0 || index < 0 || index >= count) {
+			throw new IllegalArgumentException("shard " + index + " of " + count + " doesn't exist");
+		}
+		// the first size % count shards get one key more than the others
+		long base = size / count;
+		long rest = size % count;
+		long from = index * base + Math.min(index, rest);
+		long to = from + base + (index < rest ? 1 : 0);
+		return new Slice(from, to);
+	}
+
+	/**
+	 * Builds the key from a permutation of the free targets
+	 *
+	 * @param permutation a permutation of the indexes of the free targets
+	 * @return the key
+	 */
+	protected char[] toKey(int[] permutation) {
+		char[] key = template.clone();
+		for(int i = 0; i < freePositions.length; i++) {
+			key[freePositions[i]] = freeTargets[permutation[i]];
+		}
+		return key;
+	}
+
+	/**
+	 * Rearranges the permutation into the next one in lexicographic order
+	 *
+	 * @param permutation the permutation that is changed
+	 * @return false if the permutation already was the last one
+	 */
+	protected static boolean nextPermutation(int[] permutation) {
+		// find the last position that is smaller than its successor
+		int i = permutation.length - 2;
+		while(i >= 0 && permutation[i] >= permutation[i + 1]) {
+			i--;
+		}
+		if(i < 0) {
+			return false;
+		}
+		// swap it with the smallest larger number behind it
+		int j = permutation.length - 1;
+		while(permutation[j] <= permutation[i]) {
+			j--;
+		}
+		int tmp = permutation[i];
+		permutation[i] = permutation[j];
+		permutation[j] = tmp;
+		// and put everything behind it back into ascending order
+		for(int l = i + 1, r = permutation.length - 1; l < r; l++, r--) {
+			tmp = permutation[l];
+			permutation[l] = permutation[r];
+			permutation[r] = tmp;
+		}
+		return true;
+	}
+
+	/**
+	 * A continuous range of ranks of the key space. Slices can be halved again and again, so they can be distributed
+	 * over the threads of a {@link java.util.concurrent.ForkJoinPool}.
+	 */
+	public class Slice implements Iterable<char[]> {
+
+		/**
+		 * first rank of the slice (inclusive)
+		 */
+		protected final long from;
+
+		/**
+		 * last rank of the slice (exclusive)
+		 */
+		protected final long to;
+
+		/**
+		 * Creates a slice
+		 *
+		 * @param from first rank (inclusive)
+		 * @param to   last rank (exclusive)
+		 */
+		protected Slice(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * @return the first rank of the slice (inclusive)
+		 */
+		public long getFrom() {
+			return from;
+		}
+
+		/**
+		 * @return the last rank of the slice (exclusive)
+		 */
+		public long getTo() {
+			return to;
+		}
+
+		/**
+		 * @return the number of keys in the slice
+		 */
+		public long size() {
+			return to - from;
+		}
+
+		/**
+		 * @return the key space this slice belongs to
+		 */
+		public MonoalphabeticKeySpace getKeySpace() {
+			return MonoalphabeticKeySpace.this;
+		}
+
+		/**
+		 * @return the first half of this slice
+		 */
+		public Slice lowerHalf() {
+			return new Slice(from, from + size() / 2);
+		}
+
+		/**
+		 * @return the second half of this slice
+		 */
+		public Slice upperHalf() {
+			return new Slice(from + size() / 2, to);
+		}
+
+		/**
+		 * Returns an iterator over all keys of this slice in lexicographic order. Only the first key is calculated
+		 * from its rank, every following key is derived from its predecessor.
+		 *
+		 * @return an iterator over the keys
+		 */
+		@Override
+		public Iterator<char[]> iterator() {
+			return new Iterator<char[]>() {
+				long rank = from;
+				int[] permutation = from < to ? utils.unrankPermutation(from, freePositions.length) : null;
+
+				@Override
+				public boolean hasNext() {
+					return rank < to;
+				}
+
+				@Override
+				public char[] next() {
+					if(!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					char[] key = toKey(permutation);
+					rank++;
+					if(rank < to) {
+						nextPermutation(permutation);
+					}
+					return key;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
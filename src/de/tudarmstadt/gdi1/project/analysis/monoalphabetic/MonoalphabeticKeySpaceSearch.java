@@ -0,0 +1,99 @@
+package de.tudarmstadt.gdi1.project.analysis.monoalphabetic;
+
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.analysis.ValidateDecryptionOracle;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.MonoalphabeticCipherImpl;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Brute forces a slice of a {@link MonoalphabeticKeySpace}. The slice is halved until the parts are small enough
+ * and every part is searched by one thread of the pool. As soon as one thread finds the key, the others stop.
+ * <p/>
+ * Usage: {@code SharedForkJoinPool.get().invoke(new MonoalphabeticKeySpaceSearch(keySpace.shard(0, 1), ciphertext, oracle))}
+ */
+public class MonoalphabeticKeySpaceSearch extends RecursiveTask<char[]> {
+
+	/**
+	 * Slices with more keys than this are split up further
+	 */
+	public static final long SPLIT_THRESHOLD = 4096;
+
+	/**
+	 * the keys this task has to check
+	 */
+	protected final MonoalphabeticKeySpace.Slice slice;
+
+	/**
+	 * the ciphertext
+	 */
+	protected final String ciphertext;
+
+	/**
+	 * decides whether a decryption is correct
+	 */
+	protected final ValidateDecryptionOracle oracle;
+
+	/**
+	 * the key that was found, shared by all tasks of one search
+	 */
+	protected final AtomicReference<char[]> result;
+
+	/**
+	 * Creates a search over the given slice
+	 *
+	 * @param slice      the keys to check
+	 * @param ciphertext the ciphertext
+	 * @param oracle     an oracle that recognizes the correct plaintext
+	 */
+	public MonoalphabeticKeySpaceSearch(MonoalphabeticKeySpace.Slice slice, String ciphertext, ValidateDecryptionOracle oracle) {
+		this(slice, ciphertext, oracle, new AtomicReference<char[]>());
+	}
+
+	/**
+	 * Creates a part of a search that shares its result with the other parts
+	 *
+	 * @param slice      the keys to check
+	 * @param ciphertext the ciphertext
+	 * @param oracle     an oracle that recognizes the correct plaintext
+	 * @param result     the shared result
+	 */
+	protected MonoalphabeticKeySpaceSearch(MonoalphabeticKeySpace.Slice slice, String ciphertext, ValidateDecryptionOracle oracle, AtomicReference<char[]> result) {
+		this.slice = slice;
+		this.ciphertext = ciphertext;
+		this.oracle = oracle;
+		this.result = result;
+	}
+
+	/**
+	 * Searches the slice
+	 *
+	 * @return the key that decrypts the ciphertext correctly or null if it isn't part of the slice
+	 */
+	@Override
+	protected char[] compute() {
+		if(slice.size() > SPLIT_THRESHOLD) {
+			// search one half in another thread and the other one in this thread
+			MonoalphabeticKeySpaceSearch lower = new MonoalphabeticKeySpaceSearch(slice.lowerHalf(), ciphertext, oracle, result);
+			MonoalphabeticKeySpaceSearch upper = new MonoalphabeticKeySpaceSearch(slice.upperHalf(), ciphertext, oracle, result);
+			lower.fork();
+			char[] ret = upper.compute();
+			char[] lowerRet = lower.join();
+			return ret != null ? ret : lowerRet;
+		}
+
+		for(char[] key : slice) {
+			// stop if another thread already found the key
+			if(result.get() != null) {
+				return null;
+			}
+			MonoalphabeticCipherImpl cipher = new MonoalphabeticCipherImpl(slice.getKeySpace().getAlphabet(), new AlphabetImpl(new String(key)));
+			if(oracle.isCorrect(cipher.decrypt(ciphertext))) {
+				result.compareAndSet(null, key);
+				return key;
+			}
+		}
+		return null;
+	}
+}
@@ -1,9 +1,16 @@
 package de.tudarmstadt.gdi1.project.cipher.enigma;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Implements an Enigma machine
+ * Implements an Enigma machine.
+ * <p/>
+ * The machine only holds the configuration (rotors, their start positions, pinboard and reverse rotor) and never
+ * changes. The current positions of the rotors are kept in an {@link EnigmaSession}, so one machine can encrypt texts
+ * on any number of threads at the same time without locking, each call working with its own session. Long texts
+ * are split into ranges and encrypted on several threads, see {@link #getParallelThreshold()}.
  *
  */
 public class EnigmaImpl implements Enigma {
@@ -11,17 +18,27 @@ public class EnigmaImpl implements Enigma {
 	/**
 	 * Rotors
 	 */
-	protected List<Rotor> rotors;
+	protected final List<Rotor> rotors;
 
 	/**
 	 * PinBoard
 	 */
-	protected PinBoard pinBoard;
+	protected final PinBoard pinBoard;
 
 	/**
 	 * Reverse rotor
 	 */
-	protected ReverseRotor reverseRotor;
+	protected final ReverseRotor reverseRotor;
+
+	/**
+	 * true if all rotors are {@link RotorImpl}s, which can translate at any position without being rotated
+	 */
+	protected final boolean stateless;
+
+	/**
+	 * the precompiled table, null until {@link #compile()} was called
+	 */
+	private volatile EnigmaTable table;
 
 	/**
 	 * Constructs an Enigma machine with the given rotors, pinboard and reverserotor
@@ -31,9 +48,16 @@ public class EnigmaImpl implements Enigma {
 	 * @param reverseRotor Reverse rotor of the Enigma
 	 */
 	public EnigmaImpl(List<Rotor> rotors, PinBoard pinboard, ReverseRotor reverseRotor) {
-		this.rotors = rotors;
+		// copy the list, so changing it afterwards doesn't change the machine
+		this.rotors = Collections.unmodifiableList(new ArrayList<Rotor>(rotors));
 		this.pinBoard = pinboard;
 		this.reverseRotor = reverseRotor;
+
+		boolean allRotorImpls = true;
+		for(Rotor rotor : rotors) {
+			allRotorImpls &= rotor instanceof RotorImpl;
+		}
+		this.stateless = allRotorImpls;
 	}
 
 	/**
@@ -44,41 +68,10 @@ public class EnigmaImpl implements Enigma {
 	 */
 	@Override
 	public String encrypt(String text) {
-		// string builder for better performance
-		StringBuilder ret = new StringBuilder();
-
-		// translate every character individually
-		for(char c : text.toCharArray()) {
-			// go through the pin board
-			char cAfterPin = pinBoard.translate(c);
-			// go forwards through the rotors
-			for(Rotor r : rotors) {
-				cAfterPin = r.translate(c, true);
-			}
-			// goes through the reverserotor
-			char cAfterReverse = reverseRotor.translate(cAfterPin);
-			// backwards through the rotors
-			for(int i = rotors.size() - 1; i >= 0; i--) {
-				cAfterReverse = rotors.get(i).translate(cAfterReverse, false);
-			}
-
-			// append string builder
-			ret.append(pinBoard.translate(cAfterReverse));
-
-			// move rotors. Only move the next one if the previous one made a full rotation
-			for(Rotor rotor : rotors) {
-				if(!rotor.rotate()) { // break unless the rotor just returned to its starting position
-					break;
-				}
-			}
-		}
-
-		// after encrypting/decrypting a text, reset all rotors
-		for(Rotor rotor : rotors) {
-			rotor.reset();
-		}
-
-		return ret.toString();
+		// every text starts with the rotors in their starting position, so every call gets its own session
+		char[] textArray = text.toCharArray();
+		newSession().encrypt(textArray, 0, textArray.length, textArray, 0);
+		return new String(textArray);
 	}
 
 	/**
@@ -92,4 +85,91 @@ public class EnigmaImpl implements Enigma {
 		// Encryption and decryption follow the same algorithm
 		return this.encrypt(text);
 	}
+
+	/**
+	 * Starts a new session with all rotors in their starting position. A session can encrypt a long text in several
+	 * parts, the rotors keep turning from one part to the next.
+	 *
+	 * @return the session
+	 */
+	public EnigmaSession newSession() {
+		return new EnigmaSession(this);
+	}
+
+	/**
+	 * Starts a new session with the rotors in the positions they have after the given number of characters, so a
+	 * long text can be decrypted from the middle on.
+	 *
+	 * @param position the number of characters before the first one the session encrypts
+	 * @return the session
+	 */
+	public EnigmaSession newSession(long position) {
+		EnigmaSession session = new EnigmaSession(this);
+		session.seek(position);
+		return session;
+	}
+
+	/**
+	 * @return the rotors, in the order a character passes them on its way to the reverse rotor
+	 */
+	public List<Rotor> getRotors() {
+		return rotors;
+	}
+
+	/**
+	 * @return the pinboard
+	 */
+	public PinBoard getPinBoard() {
+		return pinBoard;
+	}
+
+	/**
+	 * @return the reverse rotor
+	 */
+	public ReverseRotor getReverseRotor() {
+		return reverseRotor;
+	}
+
+	/**
+	 * @return true if all rotors can translate at any position without being rotated. Otherwise sessions have to turn
+	 * the shared rotors and take turns.
+	 */
+	public boolean isStateless() {
+		return stateless;
+	}
+
+	/**
+	 * Texts with at least this many characters get split into ranges that are encrypted in parallel, if the machine
+	 * is stateless. Subclasses can override this to split shorter texts or to never split at all.
+	 *
+	 * @return the number of characters, {@link EnigmaSession#DEFAULT_PARALLEL_THRESHOLD} by default
+	 */
+	protected int getParallelThreshold() {
+		return EnigmaSession.DEFAULT_PARALLEL_THRESHOLD;
+	}
+
+	/**
+	 * Precomputes the way through the machine for every position of the rotors, so sessions started afterwards encrypt
+	 * every character with a single lookup. The table is built in parallel, only once per machine.
+	 *
+	 * @return true if the machine is compiled, false if it has foreign parts or is too large, see
+	 * {@link EnigmaTable#MAX_ENTRIES}
+	 */
+	public boolean compile() {
+		if(table == null) {
+			synchronized(this) {
+				if(table == null) {
+					table = EnigmaTable.compile(this);
+				}
+			}
+		}
+		return table != null;
+	}
+
+	/**
+	 * @return the precompiled table or null if the machine isn't compiled
+	 */
+	public EnigmaTable getTable() {
+		return table;
+	}
 }
@@ -0,0 +1,581 @@
+package de.tudarmstadt.gdi1.project.cipher.enigma;
+
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The positions of the rotors of an {@link EnigmaImpl} while a text is encrypted. A session is cheap to create and
+ * belongs to a single thread, while the machine it belongs to can be shared by many sessions.
+ * <p/>
+ * If all rotors of the machine are {@link RotorImpl}s, the session only counts the positions and the rotors are never
+ * touched. Other rotors can only translate at their current position, so for them the session resets the rotors,
+ * turns them to its own position, encrypts and resets them again, while holding the lock of the machine. The rotors
+ * aren't owned by the machine, so every call starts from their starting position and has to turn them through all
+ * characters the session encrypted before; encrypting a text in many small parts costs time quadratic in its length.
+ * <p/>
+ * The positions of the rotors only depend on the position in the text, so a long text is split into ranges that are
+ * encrypted in parallel, each by its own session that seeks to the start of its range.
+ */
+public class EnigmaSession {
+
+	/**
+	 * the default for {@link EnigmaImpl#getParallelThreshold()}
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * the number of characters a single thread encrypts when encrypting in parallel
+	 */
+	protected static final int PARALLEL_RANGE_SIZE = 1 << 13;
+
+	/**
+	 * the number of characters {@link #update(CharBuffer, CharBuffer)} copies at once from buffers without an array
+	 */
+	private static final int UPDATE_BUFFER_SIZE = 4096;
+
+	/**
+	 * the machine
+	 */
+	protected final EnigmaImpl enigma;
+
+	/**
+	 * the rotors of the machine
+	 */
+	protected final Rotor[] rotors;
+
+	/**
+	 * the rotors of the machine, only set if the machine is stateless
+	 */
+	protected final RotorImpl[] statelessRotors;
+
+	/**
+	 * the pin board of the machine
+	 */
+	protected final PinBoard pinBoard;
+
+	/**
+	 * the reverse rotor of the machine
+	 */
+	protected final ReverseRotor reverseRotor;
+
+	/**
+	 * texts with at least this many characters get split into ranges that are encrypted in parallel, if the machine
+	 * is stateless
+	 */
+	protected final int parallelThreshold;
+
+	/**
+	 * the precompiled table of the machine, or null if it isn't compiled
+	 */
+	protected final EnigmaTable table;
+
+	/**
+	 * the current position of every rotor, only used if the machine is stateless
+	 */
+	protected final int[] positions;
+
+	/**
+	 * the number of rotors a character passes one by one, 2 or less. The rotors after them turn only every few
+	 * hundred characters, so the way through them, the reverse rotor and back is kept in {@link #stationary}.
+	 */
+	protected final int moving;
+
+	/**
+	 * the way from the last moving rotor through the stationary rotors, the reverse rotor and back, as indices in the
+	 * common alphabet of the rotors, -1 for characters that can't pass. Null if the machine isn't stateless, has no
+	 * rotors or rotors with different alphabets.
+	 */
+	protected final int[] stationary;
+
+	/**
+	 * true if a stationary rotor turned since {@link #stationary} was computed
+	 */
+	protected boolean stationaryChanged = true;
+
+	/**
+	 * the position in the text, the number of characters encrypted since the rotors were in their starting position
+	 */
+	protected long count;
+
+	/**
+	 * Creates a session with all rotors in their starting position
+	 *
+	 * @param enigma the machine
+	 */
+	public EnigmaSession(EnigmaImpl enigma) {
+		this.enigma = enigma;
+		List<Rotor> rotorList = enigma.getRotors();
+		this.rotors = rotorList.toArray(new Rotor[rotorList.size()]);
+		this.pinBoard = enigma.getPinBoard();
+		this.reverseRotor = enigma.getReverseRotor();
+		this.table = enigma.getTable();
+		this.parallelThreshold = enigma.getParallelThreshold();
+		this.positions = new int[rotors.length];
+		if(enigma.isStateless()) {
+			this.statelessRotors = new RotorImpl[rotors.length];
+			for(int i = 0; i < rotors.length; i++) {
+				statelessRotors[i] = (RotorImpl) rotors[i];
+				positions[i] = statelessRotors[i].getStartOffset();
+			}
+		} else {
+			this.statelessRotors = null;
+		}
+		this.moving = Math.min(2, rotors.length);
+		this.stationary = hasCommonAlphabet() ? new int[statelessRotors[0].size()] : null;
+	}
+
+	/**
+	 * Encrypts len characters of src starting at srcOff and writes them to dst starting at dstOff. The rotors keep
+	 * turning, so a long text can be encrypted by calling this method for one part after another. src and dst may be
+	 * the same array if srcOff and dstOff are the same. Long texts are encrypted in parallel, see
+	 * {@link EnigmaImpl#getParallelThreshold()}.
+	 *
+	 * @param src    the plaintext
+	 * @param srcOff the position of the first character in src
+	 * @param len    the number of characters to encrypt
+	 * @param dst    the array the ciphertext is written to
+	 * @param dstOff the position in dst the first encrypted character is written to
+	 */
+	public void encrypt(char[] src, int srcOff, int len, char[] dst, int dstOff) {
+		if(statelessRotors != null && len >= parallelThreshold) {
+			encryptParallel(src, srcOff, len, dst, dstOff);
+		} else {
+			encryptSequential(src, srcOff, len, dst, dstOff);
+		}
+	}
+
+	/**
+	 * Encrypts the characters one after another in this thread, see {@link #encrypt(char[], int, int, char[], int)}
+	 */
+	private void encryptSequential(char[] src, int srcOff, int len, char[] dst, int dstOff) {
+		if(table != null) {
+			// one lookup per character, the rotors are only set once at the end
+			table.translate(src, srcOff, len, dst, dstOff, count);
+			seek(count + len);
+			return;
+		}
+		if(statelessRotors != null) {
+			for(int i = 0; i < len; i++) {
+				dst[dstOff + i] = translate(src[srcOff + i]);
+			}
+		} else {
+			encryptWithSharedRotors(src, srcOff, len, dst, dstOff);
+		}
+		count += len;
+	}
+
+	/**
+	 * Encrypts the characters in ranges on several threads and moves this session behind the last of them
+	 */
+	private void encryptParallel(char[] src, int srcOff, int len, char[] dst, int dstOff) {
+		RangeTask task = new RangeTask(src, srcOff, len, dst, dstOff, count);
+		// if we're already running in a pool, just fork into that pool
+		if(ForkJoinTask.inForkJoinPool()) {
+			task.invoke();
+		} else {
+			SharedForkJoinPool.get().invoke(task);
+		}
+		seek(count + len);
+	}
+
+	/**
+	 * Encrypts a text, continuing where the last call stopped
+	 *
+	 * @param text the plaintext
+	 * @return the ciphertext
+	 */
+	public String encrypt(String text) {
+		char[] textArray = text.toCharArray();
+		encrypt(textArray, 0, textArray.length, textArray, 0);
+		return new String(textArray);
+	}
+
+	/**
+	 * Encrypts the next part of a message, continuing with the positions the rotors have after the last part. Decrypting
+	 * works the same way, the enigma is its own inverse.
+	 *
+	 * @param text the next part of the plaintext
+	 * @return the ciphertext of the part
+	 */
+	public char[] update(char[] text) {
+		char[] ret = new char[text.length];
+		encrypt(text, 0, text.length, ret, 0);
+		return ret;
+	}
+
+	/**
+	 * Encrypts the remaining characters of the buffer in place and moves its position to its limit, continuing with the
+	 * positions the rotors have after the last part
+	 *
+	 * @param buffer the next part of the plaintext
+	 */
+	public void update(CharBuffer buffer) {
+		update(buffer, buffer);
+	}
+
+	/**
+	 * Encrypts the remaining characters of src into dst, continuing with the positions the rotors have after the last
+	 * part. The positions of both buffers move on by the number of characters.
+	 *
+	 * @param src the next part of the plaintext
+	 * @param dst the buffer the ciphertext is written to, may be src itself
+	 * @throws BufferOverflowException if dst doesn't have enough room, nothing is encrypted then
+	 */
+	public void update(CharBuffer src, CharBuffer dst) {
+		int len = src.remaining();
+		if(dst != src && dst.remaining() < len) {
+			throw new BufferOverflowException();
+		}
+
+		if(src.hasArray() && dst.hasArray()) {
+			// encrypt straight from one array into the other
+			encrypt(src.array(), src.arrayOffset() + src.position(), len, dst.array(), dst.arrayOffset() + dst.position());
+			src.position(src.position() + len);
+			if(dst != src) {
+				dst.position(dst.position() + len);
+			}
+		} else {
+			// go through an array in small parts
+			char[] buffer = new char[Math.min(len, UPDATE_BUFFER_SIZE)];
+			int start = src.position();
+			for(int done = 0; done < len; done += buffer.length) {
+				int count = Math.min(buffer.length, len - done);
+				src.get(buffer, 0, count);
+				encrypt(buffer, 0, count, buffer, 0);
+				if(dst == src) {
+					src.position(start + done);
+					src.put(buffer, 0, count);
+				} else {
+					dst.put(buffer, 0, count);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ends the message and puts the rotors back into their starting position, so the session can encrypt the next one
+	 *
+	 * @return the number of characters of the message
+	 */
+	public long finish() {
+		long ret = count;
+		reset();
+		return ret;
+	}
+
+	/**
+	 * Passes one character through the machine and turns the rotors
+	 *
+	 * @param c the character
+	 * @return the encrypted character
+	 */
+	protected char translate(char c) {
+		c = passThrough(c);
+		advance();
+		return c;
+	}
+
+	/**
+	 * Passes one character through the machine at the current positions of the rotors, without turning them
+	 *
+	 * @param c the character
+	 * @return the encrypted character
+	 */
+	protected char passThrough(char c) {
+		if(stationary == null) {
+			return passThroughAll(c);
+		}
+		if(stationaryChanged) {
+			updateStationary();
+		}
+
+		// all rotors share their alphabet, so the character goes through them as an index
+		RotorImpl[] rotors = statelessRotors;
+		c = pinBoard.translate(c);
+		int index = rotors[0].getIndex(c);
+		if(index == CharTable.UNMAPPED) {
+			throw new InvalidCharacterException("The character '" + c + "' is not part of the rotor's alphabet!");
+		}
+		// forwards through the moving rotors
+		for(int j = 0; j < moving; j++) {
+			index = rotors[j].translateIndex(index, true, positions[j]);
+		}
+		// through the stationary part
+		index = stationary[index];
+		if(index == CharTable.UNMAPPED) {
+			throw new InvalidCharacterException("The character '" + c + "' can't pass the reverse rotor!");
+		}
+		// backwards through the moving rotors
+		for(int j = moving - 1; j >= 0; j--) {
+			index = rotors[j].translateIndex(index, false, positions[j]);
+		}
+		return pinBoard.translate(rotors[0].getChar(index));
+	}
+
+	/**
+	 * Passes one character through all parts of the machine at the current positions of the rotors
+	 *
+	 * @param c the character
+	 * @return the encrypted character
+	 */
+	private char passThroughAll(char c) {
+		RotorImpl[] rotors = statelessRotors;
+		// go through the pin board
+		c = pinBoard.translate(c);
+		// go forwards through the rotors
+		for(int j = 0; j < rotors.length; j++) {
+			c = rotors[j].translate(c, true, positions[j]);
+		}
+		// goes through the reverserotor
+		c = reverseRotor.translate(c);
+		// backwards through the rotors
+		for(int j = rotors.length - 1; j >= 0; j--) {
+			c = rotors[j].translate(c, false, positions[j]);
+		}
+		return pinBoard.translate(c);
+	}
+
+	/**
+	 * computes the way through the stationary rotors, the reverse rotor and back for every character
+	 */
+	private void updateStationary() {
+		RotorImpl[] rotors = statelessRotors;
+		for(int i = 0; i < stationary.length; i++) {
+			int index = i;
+			for(int j = moving; j < rotors.length; j++) {
+				index = rotors[j].translateIndex(index, true, positions[j]);
+			}
+			// the reverse rotor works with characters
+			int reversed;
+			try {
+				reversed = rotors[0].getIndex(reverseRotor.translate(rotors[0].getChar(index)));
+			} catch(InvalidCharacterException e) {
+				reversed = CharTable.UNMAPPED;
+			}
+			if(reversed != CharTable.UNMAPPED) {
+				for(int j = rotors.length - 1; j >= moving; j--) {
+					reversed = rotors[j].translateIndex(reversed, false, positions[j]);
+				}
+			}
+			stationary[i] = reversed;
+		}
+		stationaryChanged = false;
+	}
+
+	/**
+	 * @return true if the machine is stateless and all rotors have the same input alphabet
+	 */
+	private boolean hasCommonAlphabet() {
+		if(statelessRotors == null || statelessRotors.length == 0) {
+			return false;
+		}
+		for(RotorImpl rotor : statelessRotors) {
+			if(!rotor.getInputAlphabet().equals(statelessRotors[0].getInputAlphabet())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * moves the rotors one character on. Only move the next one if the previous one returned to its starting position
+	 */
+	protected void advance() {
+		RotorImpl[] rotors = statelessRotors;
+		for(int j = 0; j < rotors.length; j++) {
+			RotorImpl rotor = rotors[j];
+			if(++positions[j] == rotor.size()) {
+				positions[j] = 0;
+			}
+			if(j >= moving) {
+				// the way through the stationary rotors changed
+				stationaryChanged = true;
+			}
+			if(positions[j] != rotor.getStartPosition()) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Encrypts with rotors that have to be turned. The rotors are shared by all sessions of the machine, so this
+	 * locks the machine, resets the rotors, turns them to the position of this session, encrypts and resets them again.
+	 *
+	 * @param src    the plaintext
+	 * @param srcOff the position of the first character in src
+	 * @param len    the number of characters to encrypt
+	 * @param dst    the array the ciphertext is written to
+	 * @param dstOff the position in dst the first encrypted character is written to
+	 */
+	private void encryptWithSharedRotors(char[] src, int srcOff, int len, char[] dst, int dstOff) {
+		synchronized(enigma) {
+			// the rotors may have been turned by someone else, so start from their starting position
+			resetRotors();
+			try {
+				// replay the characters this session has already encrypted
+				for(long k = 0; k < count; k++) {
+					step();
+				}
+
+				for(int i = 0; i < len; i++) {
+					// go through the pin board
+					char c = pinBoard.translate(src[srcOff + i]);
+					// go forwards through the rotors
+					for(Rotor r : rotors) {
+						c = r.translate(c, true);
+					}
+					// goes through the reverserotor
+					c = reverseRotor.translate(c);
+					// backwards through the rotors
+					for(int j = rotors.length - 1; j >= 0; j--) {
+						c = rotors[j].translate(c, false);
+					}
+					dst[dstOff + i] = pinBoard.translate(c);
+					step();
+				}
+			} finally {
+				// leave the rotors in their starting position, even if a character couldn't be encrypted
+				resetRotors();
+			}
+		}
+	}
+
+	/**
+	 * puts the shared rotors back into their starting position
+	 */
+	private void resetRotors() {
+		for(Rotor rotor : rotors) {
+			rotor.reset();
+		}
+	}
+
+	/**
+	 * moves the shared rotors. Only move the next one if the previous one made a full rotation
+	 */
+	private void step() {
+		for(Rotor rotor : rotors) {
+			if(!rotor.rotate()) { // break unless the rotor just returned to its starting position
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Sets the rotors to the positions they have after the given number of characters were encrypted, without
+	 * encrypting them. The first rotor turns with every character and every other rotor turns whenever the one before
+	 * it returns to its start, so the positions are the digits of the number in a mixed radix system whose bases are
+	 * the sizes of the rotors. A rotor that starts outside of its alphabet never returns to its start, so the rotors
+	 * after it keep their starting positions.
+	 *
+	 * @param position the number of characters, 0 to go back to the starting position
+	 */
+	public void seek(long position) {
+		if(position < 0) {
+			throw new IllegalArgumentException("The position can't be negative!");
+		}
+		count = position;
+		// rotors that have to be turned are set from the count when the next part is encrypted
+		if(statelessRotors == null) {
+			return;
+		}
+
+		stationaryChanged = true;
+		long steps = position;
+		for(int j = 0; j < statelessRotors.length; j++) {
+			RotorImpl rotor = statelessRotors[j];
+			int size = rotor.size();
+			if(size == 0) {
+				break;
+			}
+			// the next digit is how often this rotor turned since its start
+			positions[j] = (int) ((rotor.getStartOffset() + steps % size) % size);
+			steps /= size;
+			// a rotor only passes its turns on if it ever returns to its start
+			boolean carries = rotor.getStartPosition() >= 0 && rotor.getStartPosition() < size;
+			if(!carries) {
+				steps = 0;
+			}
+		}
+	}
+
+	/**
+	 * puts the rotors back into their starting position, so the session can encrypt the next text
+	 */
+	public void reset() {
+		seek(0);
+	}
+
+	/**
+	 * @return the position in the text, the number of characters encrypted since the start or the last
+	 * {@link #seek(long)}
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Encrypts a range of the text, either by splitting it in half or, if it's small enough, with a session of its own
+	 */
+	private class RangeTask extends RecursiveAction {
+		/**
+		 * the input
+		 */
+		private final char[] src;
+
+		/**
+		 * the position of the first character in src
+		 */
+		private final int srcOff;
+
+		/**
+		 * the number of characters to encrypt
+		 */
+		private final int len;
+
+		/**
+		 * the output
+		 */
+		private final char[] dst;
+
+		/**
+		 * the position in dst the first character is written to
+		 */
+		private final int dstOff;
+
+		/**
+		 * the position of the first character in the whole text
+		 */
+		private final long position;
+
+		/**
+		 * Creates the task, see {@link #encrypt(char[], int, int, char[], int)} for the parameters
+		 */
+		public RangeTask(char[] src, int srcOff, int len, char[] dst, int dstOff, long position) {
+			this.src = src;
+			this.srcOff = srcOff;
+			this.len = len;
+			this.dst = dst;
+			this.dstOff = dstOff;
+			this.position = position;
+		}
+
+		@Override
+		protected void compute() {
+			if(len > PARALLEL_RANGE_SIZE) {
+				// split in the middle, both halves keep their position in the text
+				int half = len / 2;
+				invokeAll(new RangeTask(src, srcOff, half, dst, dstOff, position),
+						new RangeTask(src, srcOff + half, len - half, dst, dstOff + half, position + half));
+			} else {
+				enigma.newSession(position).encryptSequential(src, srcOff, len, dst, dstOff);
+			}
+		}
+	}
+}
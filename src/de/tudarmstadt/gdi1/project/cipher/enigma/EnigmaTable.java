@@ -0,0 +1,208 @@
+package de.tudarmstadt.gdi1.project.cipher.enigma;
+
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The whole way through an {@link EnigmaImpl} (pinboard, rotors, reverse rotor and back) for every position of the
+ * rotors, precomputed as one table.
+ * <p/>
+ * The positions of the rotors only depend on the number of characters encrypted and repeat after every rotor that
+ * carries made a full turn, so the table has one row per position in that period. With three rotors of 26 characters
+ * that are 17576 rows of 26 bytes. Encrypting a character is then a single lookup.
+ */
+public class EnigmaTable {
+
+	/**
+	 * machines whose table would have more entries than this aren't compiled
+	 */
+	public static final int MAX_ENTRIES = 1 << 22;
+
+	/**
+	 * the value in the table for characters the machine can't encrypt
+	 */
+	protected static final int INVALID = 0xFF;
+
+	/**
+	 * the number of rows one thread computes when building the table
+	 */
+	private static final int BUILD_RANGE_SIZE = 1 << 10;
+
+	/**
+	 * the characters the machine accepts
+	 */
+	protected final char[] keys;
+
+	/**
+	 * maps every accepted character to its index in keys
+	 */
+	protected final CharTable keyIndex;
+
+	/**
+	 * the number of characters after which the rotors are back in their starting position
+	 */
+	protected final int period;
+
+	/**
+	 * table[row * keys.length + i] is the index in keys of the encrypted keys[i] at the position row of the period
+	 */
+	protected final byte[] table;
+
+	/**
+	 * Builds the table of a machine
+	 *
+	 * @param enigma the machine, which has to be stateless
+	 * @param keys   the characters the machine accepts
+	 * @param period the number of characters after which the rotors are back in their starting position
+	 */
+	protected EnigmaTable(EnigmaImpl enigma, char[] keys, int period) {
+		this.keys = keys;
+		this.keyIndex = new CharTable(keys);
+		this.period = period;
+		this.table = new byte[period * keys.length];
+		SharedForkJoinPool.get().invoke(new BuildTask(enigma, 0, period));
+	}
+
+	/**
+	 * Builds the table of a machine, if it's small enough
+	 *
+	 * @param enigma the machine
+	 * @return the table or null if the machine has foreign parts or the table would be too large
+	 */
+	public static EnigmaTable compile(EnigmaImpl enigma) {
+		if(!enigma.isStateless()) {
+			return null;
+		}
+
+		// the characters that may be encrypted are the ones the pin board accepts
+		char[] keys;
+		List<Rotor> rotors = enigma.getRotors();
+		if(enigma.getPinBoard() instanceof PinBoardImpl) {
+			keys = ((PinBoardImpl) enigma.getPinBoard()).getInputAlphabet().asCharArray();
+		} else if(!rotors.isEmpty()) {
+			keys = ((RotorImpl) rotors.get(0)).getInputAlphabet().asCharArray();
+		} else {
+			return null;
+		}
+		// the indices have to fit into a byte next to INVALID
+		if(keys.length >= 0xFF) {
+			return null;
+		}
+
+		// the rotors after the first one that never carries never turn
+		long period = 1;
+		for(Rotor r : rotors) {
+			RotorImpl rotor = (RotorImpl) r;
+			period *= Math.max(1, rotor.size());
+			if(period * keys.length > MAX_ENTRIES) {
+				return null;
+			}
+			if(rotor.getStartPosition() < 0 || rotor.getStartPosition() >= rotor.size()) {
+				break;
+			}
+		}
+		return new EnigmaTable(enigma, keys, (int) period);
+	}
+
+	/**
+	 * Encrypts len characters of src starting at srcOff and writes them to dst starting at dstOff
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param position the position of the first character in the whole text
+	 */
+	public void translate(char[] src, int srcOff, int len, char[] dst, int dstOff, long position) {
+		int size = keys.length;
+		int row = (int) (position % period);
+		int rowStart = row * size;
+		int end = period * size;
+		for(int i = 0; i < len; i++) {
+			char c = src[srcOff + i];
+			int index = keyIndex.get(c);
+			int ret = index == CharTable.UNMAPPED ? INVALID : table[rowStart + index] & 0xFF;
+			if(ret == INVALID) {
+				throw new InvalidCharacterException("The character '" + c + "' can't be encrypted by the enigma!");
+			}
+			dst[dstOff + i] = keys[ret];
+
+			// go on to the next row, the period starts again after the last one
+			rowStart += size;
+			if(rowStart == end) {
+				rowStart = 0;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of characters after which the rotors are back in their starting position
+	 */
+	public int getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Computes a range of rows, either by splitting it in half or, if it's small enough, with a session that walks
+	 * through the positions
+	 */
+	private class BuildTask extends RecursiveAction {
+		/**
+		 * the machine
+		 */
+		private final EnigmaImpl enigma;
+
+		/**
+		 * the first row
+		 */
+		private final int from;
+
+		/**
+		 * the row after the last one
+		 */
+		private final int to;
+
+		/**
+		 * Creates the task
+		 *
+		 * @param enigma the machine
+		 * @param from   the first row
+		 * @param to     the row after the last one
+		 */
+		public BuildTask(EnigmaImpl enigma, int from, int to) {
+			this.enigma = enigma;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > BUILD_RANGE_SIZE) {
+				int half = (from + to) >>> 1;
+				invokeAll(new BuildTask(enigma, from, half), new BuildTask(enigma, half, to));
+				return;
+			}
+
+			EnigmaSession session = new EnigmaSession(enigma);
+			session.seek(from);
+			for(int row = from; row < to; row++) {
+				for(int i = 0; i < keys.length; i++) {
+					int ret;
+					try {
+						ret = keyIndex.get(session.passThrough(keys[i]));
+					} catch(RuntimeException e) {
+						// the character isn't accepted by some part of the machine
+						ret = INVALID;
+					}
+					table[row * keys.length + i] = (byte) (ret == CharTable.UNMAPPED ? INVALID : ret);
+				}
+				session.advance();
+			}
+		}
+	}
+}
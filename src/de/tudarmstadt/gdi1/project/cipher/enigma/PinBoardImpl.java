@@ -2,6 +2,8 @@ package de.tudarmstadt.gdi1.project.cipher.enigma;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
 import de.tudarmstadt.gdi1.project.exception.InvalidAlphabetException;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
 
 /**
  * Represents the pinboard of an Enigma machine
@@ -12,12 +14,17 @@ public class PinBoardImpl implements PinBoard {
 	/**
 	 * Input alphabet
 	 */
-	protected Alphabet in;
+	protected final Alphabet in;
 
 	/**
 	 * output alphabet
 	 */
-	protected Alphabet out;
+	protected final Alphabet out;
+
+	/**
+	 * maps every character of the input alphabet to the character of the output alphabet
+	 */
+	protected final CharTable table;
 
 	/**
 	 * Creates a PinBoard.
@@ -34,6 +41,7 @@ public class PinBoardImpl implements PinBoard {
 		// assign properties
 		in = source;
 		out = destination;
+		table = new CharTable(source.asCharArray(), destination.asCharArray());
 
 		// Check for symmetrical alphabets. Translating twice should result in the same character if the alphabets are symmetrical
 		for(Character c : in) {
@@ -51,7 +59,18 @@ public class PinBoardImpl implements PinBoard {
 	 */
 	@Override
 	public char translate(char c) {
-		// translating by getting the corresponding letter from the output alphabet
-		return out.getChar(in.getIndex(c));
+		// look up the corresponding letter of the output alphabet
+		int ret = table.get(c);
+		if(ret == CharTable.UNMAPPED) {
+			throw new InvalidCharacterException("The character '" + c + "' is not part of the input alphabet!");
+		}
+		return (char) ret;
+	}
+
+	/**
+	 * @return the input alphabet, the characters the pinboard accepts
+	 */
+	public Alphabet getInputAlphabet() {
+		return in;
 	}
 }
@@ -2,6 +2,8 @@ package de.tudarmstadt.gdi1.project.cipher.enigma;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
 import de.tudarmstadt.gdi1.project.exception.InvalidAlphabetException;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
 
 /**
  * Represents the reverse rotor of an Enigma machine
@@ -12,12 +14,17 @@ public class ReverseRotorImpl implements ReverseRotor {
 	/**
 	 * Input alphabet
 	 */
-	protected Alphabet in;
+	protected final Alphabet in;
 
 	/**
 	 * output alphabet
 	 */
-	protected Alphabet out;
+	protected final Alphabet out;
+
+	/**
+	 * maps every character of the input alphabet to the character of the output alphabet
+	 */
+	protected final CharTable table;
 
 	/**
 	 * Constructs a reverserotor. The alphabets have to be the same size and no letter can be translated to itself.
@@ -41,6 +48,7 @@ public class ReverseRotorImpl implements ReverseRotor {
 		// assign properties
 		this.in = entryAlph;
 		this.out = exitAlph;
+		this.table = new CharTable(entryAlph.asCharArray(), exitAlph.asCharArray());
 
 		// Check for symmetrical alphabets. Translating twice should result in the same character if the alphabets are symmetrical
 		for(Character c : in) {
@@ -58,7 +66,11 @@ public class ReverseRotorImpl implements ReverseRotor {
 	 */
 	@Override
 	public char translate(char c) {
-		// pretty straightforward translating. Just return corresponding output letter from the input alphabet
-		return out.getChar(in.getIndex(c));
+		// look up the corresponding letter of the output alphabet
+		int ret = table.get(c);
+		if(ret == CharTable.UNMAPPED) {
+			throw new InvalidCharacterException("The character '" + c + "' is not part of the input alphabet!");
+		}
+		return (char) ret;
 	}
 }
@@ -1,13 +1,19 @@
 package de.tudarmstadt.gdi1.project.cipher.enigma;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
-import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
 import de.tudarmstadt.gdi1.project.exception.InvalidAlphabetException;
-
-import java.util.ArrayList;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
 
 /**
- * Implements a configurable rotor of the Enigma machine
+ * Implements a configurable rotor of the Enigma machine.
+ * <p/>
+ * The rotor is stored as a fixed wiring between the positions of the input alphabet and an offset, the number of
+ * rotations. Rotating only increments the offset, translating is a few array accesses.
+ * <p/>
+ * The methods of the {@link Rotor} interface turn the rotor itself. {@link EnigmaImpl} doesn't use them, it keeps the
+ * positions of its rotors in an {@link EnigmaSession} and uses {@link #translate(char, boolean, int)}, which never
+ * changes the rotor, so one rotor can be used by many enigmas and threads at the same time.
  *
  */
 public class RotorImpl implements Rotor {
@@ -15,27 +21,43 @@ public class RotorImpl implements Rotor {
 	/**
 	 * input alphabet
 	 */
-	protected Alphabet in;
+	protected final Alphabet in;
 
 	/**
-	 * Current output alphabet
+	 * the characters of the input alphabet
 	 */
-	protected Alphabet out;
+	protected final char[] inChars;
 
 	/**
-	 * Current shift amount in the input alphabet for every letter
+	 * maps every character of the input alphabet to its index
 	 */
-	protected ArrayList<Integer> shift;
+	protected final CharTable inIndex;
 
 	/**
-	 * Current rotation status
+	 * Current rotation status, the offset of the wiring
 	 */
 	protected int rotationStatus;
 
 	/**
 	 * The number of rotations this rotor started at
 	 */
-	protected int startRotation;
+	protected final int startRotation;
+
+	/**
+	 * the offset the rotor starts at, between 0 and size - 1
+	 */
+	protected final int startOffset;
+
+	/**
+	 * wiring[j] is the index in the input alphabet of the j-th character of the output alphabet the rotor was created
+	 * with. This never changes, so it can be used to translate at any position without rotating the rotor.
+	 */
+	protected final int[] wiring;
+
+	/**
+	 * the inverse of {@link #wiring}
+	 */
+	protected final int[] inverseWiring;
 
 	/**
 	 * Constructs a rotor. Every letter in the input alphabet has to be translated to the output alphabet.
@@ -52,18 +74,21 @@ public class RotorImpl implements Rotor {
 
 		// assign properties
 		this.in = in;
-		this.out = out;
-		this.rotationStatus = 0;
+		this.inChars = in.asCharArray();
+		this.inIndex = new CharTable(inChars);
 		this.startRotation = startPosition;
-
-		// calculate the difference between every letter in the input and output alphabet and save that in the shift array
-		this.shift = new ArrayList<Integer>();
-		for(int i = 0; i < in.size(); i++) {
-			this.shift.add(in.getIndex(out.getChar(i)) - i);
-		}
-		// rotate the rotor the requested amount of times
-		for(int i = 0; i < startPosition; i++) {
-			this.rotate();
+		this.startOffset = startPosition > 0 && inChars.length > 0 ? startPosition % inChars.length : 0;
+		this.rotationStatus = startOffset;
+
+		// remember which input position every output character belongs to
+		this.wiring = new int[inChars.length];
+		this.inverseWiring = new int[inChars.length];
+		for(int i = 0; i < inChars.length; i++) {
+			wiring[i] = inIndex.get(out.getChar(i));
+			if(wiring[i] == CharTable.UNMAPPED) {
+				throw new InvalidAlphabetException("Both alphabets must contain the same characters!");
+			}
+			inverseWiring[wiring[i]] = i;
 		}
 	}
 
@@ -78,13 +103,92 @@ public class RotorImpl implements Rotor {
 	 */
 	@Override
 	public char translate(char c, boolean forward) {
-		// return the matching character from the input and output alphabets
-		// pretty straightforward since we calculate the output alphabet in every rotation
-		if(forward) {
-			return out.getChar(in.getIndex(c));
-		} else {
-			return in.getChar(out.getIndex(c));
+		return translate(c, forward, rotationStatus);
+	}
+
+	/**
+	 * passes a given character through the rotor as it is after the given number of rotations, without changing
+	 * the rotor. Unlike the other methods this one can be used by several threads at the same time.
+	 *
+	 * @param c        the character that should be passed through the rotor
+	 * @param forward  true if we pass the character forward through the rotor
+	 * @param position the number of rotations, between 0 and {@link #size()} - 1
+	 * @return the translated character
+	 */
+	public char translate(char c, boolean forward, int position) {
+		int index = inIndex.get(c);
+		if(index == CharTable.UNMAPPED) {
+			throw new InvalidCharacterException("The character '" + c + "' is not part of the rotor's alphabet!");
 		}
+		return inChars[translateIndex(index, forward, position)];
+	}
+
+	/**
+	 * passes the index of a character of the input alphabet through the rotor as it is after the given number of
+	 * rotations
+	 *
+	 * @param index    the index of the character in the input alphabet
+	 * @param forward  true if we pass the character forward through the rotor
+	 * @param position the number of rotations, between 0 and {@link #size()} - 1
+	 * @return the index of the translated character in the input alphabet
+	 */
+	public int translateIndex(int index, boolean forward, int position) {
+		int n = wiring.length;
+		// rotating moves the wiring one step: after r rotations position i is wired like position i + r was,
+		// and the result is moved back by r
+		int wired = index + position;
+		if(wired >= n) {
+			wired -= n;
+		}
+		int ret = (forward ? wiring[wired] : inverseWiring[wired]) - position;
+		if(ret < 0) {
+			ret += n;
+		}
+		return ret;
+	}
+
+	/**
+	 * @param c a character
+	 * @return the index of the character in the input alphabet or {@link CharTable#UNMAPPED}
+	 */
+	public int getIndex(char c) {
+		return inIndex.get(c);
+	}
+
+	/**
+	 * @param index an index in the input alphabet
+	 * @return the character of the input alphabet at the index
+	 */
+	public char getChar(int index) {
+		return inChars[index];
+	}
+
+	/**
+	 * @return the number of characters of the rotor, which is also the number of positions it has
+	 */
+	public int size() {
+		return wiring.length;
+	}
+
+	/**
+	 * @return the number of rotations the rotor starts at, as given to the constructor
+	 */
+	public int getStartPosition() {
+		return startRotation;
+	}
+
+	/**
+	 * @return the position the rotor starts at, between 0 and {@link #size()} - 1
+	 */
+	public int getStartOffset() {
+		return startOffset;
+	}
+
+	/**
+	 * @return the input alphabet
+	 */
+	public Alphabet getInputAlphabet() {
+		return in;
 	}
 
 	/**
@@ -95,40 +199,11 @@ public class RotorImpl implements Rotor {
 	 */
 	@Override
 	public boolean rotate() {
-		// initialize a new array
-		ArrayList<Integer> newShift = new ArrayList<Integer>();
-
-		// rotate the array
-		// new position 0 is loaded from old position 1 and so on...
-		int position = 1;
-		for(Integer i : shift) {
-			newShift.add(shift.get(position % shift.size()));
-			position++;
-		}
-
 		// add to the rotation status and put it back inbounds if necessary
 		rotationStatus++;
-		rotationStatus %= shift.size();
-
-		// assign the shift property
-		shift = newShift;
-
-		// calculate the new output alphabet
-		String newAlphabet = "";
-		for(int i = 0; i < in.size(); i++) {
-			// shift the index according to the shift array
-			int index = i;
-			index += shift.get(index);
-			// put the index back inbounds if necessary
-			index %= shift.size();
-			if(index < 0) {
-				index += shift.size();
-			}
-			// add the new character to the alphabet
-			newAlphabet += in.getChar(index);
+		if(rotationStatus == wiring.length) {
+			rotationStatus = 0;
 		}
-		// create the alphabet from the string
-		out = new AlphabetImpl(newAlphabet);
 
 		// if this reached the starting position again, return true
 		return rotationStatus == this.startRotation;
@@ -139,8 +214,6 @@ public class RotorImpl implements Rotor {
 	 */
 	@Override
 	public void reset() {
-		// rotate until this reaches the starting position
-		while(!rotate()) {
-		}
+		rotationStatus = startOffset;
 	}
 }
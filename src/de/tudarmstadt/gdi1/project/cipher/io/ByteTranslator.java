@@ -0,0 +1,305 @@
+package de.tudarmstadt.gdi1.project.cipher.io;
+
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaSession;
+import de.tudarmstadt.gdi1.project.cipher.substitution.PeriodicSubstitutionCipher;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Translates ISO-8859-1 (or ASCII) text stored as bytes, without decoding it into characters first. Like the
+ * {@link StreamTranslator} it remembers how many bytes it has already translated, so a text can be translated in
+ * several buffers one after another.
+ */
+public abstract class ByteTranslator {
+
+	/**
+	 * the number of bytes translated so far
+	 */
+	protected long position;
+
+	/**
+	 * Translates len bytes of src starting at srcOff into dst starting at dstOff and moves on by len bytes.
+	 * src and dst may be the same array.
+	 *
+	 * @param src    the input
+	 * @param srcOff the position of the first byte in src
+	 * @param len    the number of bytes to translate
+	 * @param dst    the output
+	 * @param dstOff the position in dst the first byte is written to
+	 */
+	public void translate(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+		translate(src, srcOff, len, dst, dstOff, position);
+		position += len;
+	}
+
+	/**
+	 * Translates the remaining bytes of src into dst, advancing the position of both buffers. Direct buffers are
+	 * read and written in place, nothing is copied into the heap. src and dst may be the same buffer.
+	 *
+	 * @param src the input
+	 * @param dst the output, needs at least src.remaining() bytes of space
+	 */
+	public void translate(ByteBuffer src, ByteBuffer dst) {
+		int len = src.remaining();
+		if(dst.remaining() < len) {
+			throw new IllegalArgumentException("The output buffer is too small");
+		}
+		translate(src, dst, position);
+		position += len;
+	}
+
+	/**
+	 * Translates the remaining bytes of src into dst, advancing the position of both buffers, or of the buffer once if
+	 * src and dst are the same
+	 *
+	 * @param src      the input
+	 * @param dst      the output
+	 * @param position the position of the first byte in the whole text
+	 */
+	protected void translate(ByteBuffer src, ByteBuffer dst, long position) {
+		int len = src.remaining();
+		if(src.hasArray() && dst.hasArray()) {
+			// heap buffers: work on their arrays
+			translate(src.array(), src.arrayOffset() + src.position(), len, dst.array(), dst.arrayOffset() + dst.position(), position);
+		} else {
+			translateDirect(src, src.position(), len, dst, dst.position(), position);
+		}
+		src.position(src.position() + len);
+		// when translating in place the buffer only moves once
+		if(dst != src) {
+			dst.position(dst.position() + len);
+		}
+	}
+
+	/**
+	 * Translates len bytes of src starting at srcOff into dst starting at dstOff
+	 *
+	 * @param src      the input
+	 * @param srcOff   the position of the first byte in src
+	 * @param len      the number of bytes to translate
+	 * @param dst      the output
+	 * @param dstOff   the position in dst the first byte is written to
+	 * @param position the position of the first byte in the whole text
+	 */
+	protected abstract void translate(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position);
+
+	/**
+	 * Translates bytes of a buffer that isn't backed by an array, using absolute gets and puts
+	 *
+	 * @param src      the input
+	 * @param srcOff   the index of the first byte in src
+	 * @param len      the number of bytes to translate
+	 * @param dst      the output
+	 * @param dstOff   the index in dst the first byte is written to
+	 * @param position the position of the first byte in the whole text
+	 */
+	protected abstract void translateDirect(ByteBuffer src, int srcOff, int len, ByteBuffer dst, int dstOff, long position);
+
+	/**
+	 * @return the number of bytes translated so far
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Creates a translator that encrypts with the given cipher
+	 *
+	 * @param cipher the cipher
+	 * @return the translator
+	 */
+	public static ByteTranslator encrypting(PeriodicSubstitutionCipher cipher) {
+		return new SubstitutionTranslator(cipher, true);
+	}
+
+	/**
+	 * Creates a translator that decrypts with the given cipher
+	 *
+	 * @param cipher the cipher
+	 * @return the translator
+	 */
+	public static ByteTranslator decrypting(PeriodicSubstitutionCipher cipher) {
+		return new SubstitutionTranslator(cipher, false);
+	}
+
+	/**
+	 * Creates a translator that passes the text through the enigma. The translator starts a new session, whose
+	 * rotors keep turning from one buffer to the next.
+	 *
+	 * @param enigma the enigma
+	 * @return the translator
+	 */
+	public static ByteTranslator of(EnigmaImpl enigma) {
+		return new EnigmaTranslator(enigma);
+	}
+
+	/**
+	 * translates with a 256 entry table for every position in the period of a substitution cipher
+	 */
+	private static class SubstitutionTranslator extends ByteTranslator {
+
+		/**
+		 * marks a byte that can't be translated
+		 */
+		private static final short UNMAPPED = -1;
+
+		/**
+		 * tables[p][b] is the translation of the byte b at position p in the period, or {@link #UNMAPPED}
+		 */
+		private final short[][] tables;
+
+		/**
+		 * true if encrypting, only used for error messages
+		 */
+		private final boolean encrypt;
+
+		/**
+		 * Creates the translator by translating every possible byte at every position in the period once
+		 *
+		 * @param cipher  the cipher
+		 * @param encrypt true to encrypt, false to decrypt
+		 */
+		public SubstitutionTranslator(PeriodicSubstitutionCipher cipher, boolean encrypt) {
+			this.encrypt = encrypt;
+			this.tables = new short[cipher.getPeriod()][256];
+			for(int p = 0; p < tables.length; p++) {
+				for(int b = 0; b < 256; b++) {
+					short value = UNMAPPED;
+					try {
+						char c = encrypt ? cipher.translate((char) b, p) : cipher.reverseTranslate((char) b, p);
+						// characters that don't fit into a byte can't be written, so they can't be translated either
+						if(c <= 0xFF) {
+							value = (short) c;
+						}
+					} catch(InvalidCharacterException e) {
+						// not in the alphabet, stays unmapped
+					}
+					tables[p][b] = value;
+				}
+			}
+		}
+
+		@Override
+		protected void translate(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position) {
+			int p = (int) (position % tables.length);
+			for(int i = 0; i < len; i++) {
+				short value = tables[p][src[srcOff + i] & 0xFF];
+				if(value == UNMAPPED) {
+					throw unmapped(src[srcOff + i]);
+				}
+				dst[dstOff + i] = (byte) value;
+				if(++p == tables.length) {
+					p = 0;
+				}
+			}
+		}
+
+		@Override
+		protected void translateDirect(ByteBuffer src, int srcOff, int len, ByteBuffer dst, int dstOff, long position) {
+			int p = (int) (position % tables.length);
+			for(int i = 0; i < len; i++) {
+				byte b = src.get(srcOff + i);
+				short value = tables[p][b & 0xFF];
+				if(value == UNMAPPED) {
+					throw unmapped(b);
+				}
+				dst.put(dstOff + i, (byte) value);
+				if(++p == tables.length) {
+					p = 0;
+				}
+			}
+		}
+
+		/**
+		 * @param b the byte that can't be translated
+		 * @return the exception to throw
+		 */
+		private InvalidCharacterException unmapped(byte b) {
+			return new InvalidCharacterException("can't " + (encrypt ? "encrypt" : "decrypt") + " the byte '" + (char) (b & 0xFF) + "', because it isn't in the alphabet provided or its translation doesn't fit into a byte");
+		}
+	}
+
+	/**
+	 * translates with an enigma, whose rotors carry the state from one buffer to the next
+	 */
+	private static class EnigmaTranslator extends ByteTranslator {
+
+		/**
+		 * the number of characters passed to the enigma at once
+		 */
+		private static final int BUFFER_SIZE = 4096;
+
+		/**
+		 * the session of the enigma, which keeps the positions of the rotors
+		 */
+		private final EnigmaSession session;
+
+		/**
+		 * the characters passed to the enigma
+		 */
+		private final char[] buffer = new char[BUFFER_SIZE];
+
+		/**
+		 * Creates the translator with a new session of the enigma
+		 *
+		 * @param enigma the enigma
+		 */
+		public EnigmaTranslator(EnigmaImpl enigma) {
+			this.session = enigma.newSession();
+		}
+
+		@Override
+		protected void translate(byte[] src, int srcOff, int len, byte[] dst, int dstOff, long position) {
+			seek(position);
+			for(int start = 0; start < len; start += BUFFER_SIZE) {
+				int count = Math.min(BUFFER_SIZE, len - start);
+				for(int i = 0; i < count; i++) {
+					buffer[i] = (char) (src[srcOff + start + i] & 0xFF);
+				}
+				session.encrypt(buffer, 0, count, buffer, 0);
+				for(int i = 0; i < count; i++) {
+					dst[dstOff + start + i] = toByte(buffer[i]);
+				}
+			}
+		}
+
+		@Override
+		protected void translateDirect(ByteBuffer src, int srcOff, int len, ByteBuffer dst, int dstOff, long position) {
+			seek(position);
+			for(int start = 0; start < len; start += BUFFER_SIZE) {
+				int count = Math.min(BUFFER_SIZE, len - start);
+				for(int i = 0; i < count; i++) {
+					buffer[i] = (char) (src.get(srcOff + start + i) & 0xFF);
+				}
+				session.encrypt(buffer, 0, count, buffer, 0);
+				for(int i = 0; i < count; i++) {
+					dst.put(dstOff + start + i, toByte(buffer[i]));
+				}
+			}
+		}
+
+		/**
+		 * turns the rotors to the position if the text doesn't continue where the last part stopped
+		 *
+		 * @param position the position of the first character that is translated next
+		 */
+		private void seek(long position) {
+			if(session.getCount() != position) {
+				session.seek(position);
+			}
+		}
+
+		/**
+		 * @param c a character put out by the enigma
+		 * @return the character as a byte
+		 */
+		private static byte toByte(char c) {
+			if(c > 0xFF) {
+				throw new InvalidCharacterException("The character '" + c + "' doesn't fit into a byte");
+			}
+			return (byte) c;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package de.tudarmstadt.gdi1.project.cipher.io;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * A reader that translates everything read from another reader, for example a reader that decrypts a file while it is
+ * read. Only the characters of the current read call are held in memory, no matter how long the text is.
+ */
+public class CipherReader extends FilterReader {
+
+	/**
+	 * translates the characters and keeps track of their position in the text
+	 */
+	protected final StreamTranslator translator;
+
+	/**
+	 * Creates a reader that translates the characters of in
+	 *
+	 * @param in         the reader to read from
+	 * @param translator the translator, for example {@link StreamTranslator#decrypting}
+	 */
+	public CipherReader(Reader in, StreamTranslator translator) {
+		super(in);
+		this.translator = translator;
+	}
+
+	/**
+	 * Creates a reader that decodes the bytes of in with the given charset and translates the characters
+	 *
+	 * @param in         the stream to read from
+	 * @param charset    the charset of the stream
+	 * @param translator the translator, for example {@link StreamTranslator#decrypting}
+	 */
+	public CipherReader(InputStream in, Charset charset, StreamTranslator translator) {
+		this(new InputStreamReader(in, charset), translator);
+	}
+
+	/**
+	 * Reads and translates a single character
+	 *
+	 * @return the translated character, or -1 at the end of the stream
+	 * @throws IOException if reading fails
+	 */
+	@Override
+	public int read() throws IOException {
+		char[] c = new char[1];
+		int read = read(c, 0, 1);
+		return read == -1 ? -1 : c[0];
+	}
+
+	/**
+	 * Reads characters into a part of an array and translates them
+	 *
+	 * @param cbuf the buffer
+	 * @param off  the position to start storing characters at
+	 * @param len  the maximum number of characters to read
+	 * @return the number of characters read, or -1 at the end of the stream
+	 * @throws IOException if reading fails
+	 */
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		int read = in.read(cbuf, off, len);
+		if(read > 0) {
+			translator.translate(cbuf, off, read);
+		}
+		return read;
+	}
+
+	/**
+	 * Skips characters. They still get translated, because the following characters depend on their position.
+	 *
+	 * @param n the number of characters to skip
+	 * @return the number of characters actually skipped
+	 * @throws IOException if reading fails
+	 * @throws IllegalArgumentException if n is negative
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		if(n < 0) {
+			throw new IllegalArgumentException("skip value is negative");
+		}
+		char[] buffer = new char[(int) Math.min(n, CipherWriter.BUFFER_SIZE)];
+		long skipped = 0;
+		while(skipped < n) {
+			int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+			if(read == -1) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	/**
+	 * Marking isn't supported, since going back would confuse the position of the characters
+	 *
+	 * @return false
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Marking isn't supported
+	 *
+	 * @param readAheadLimit ignored
+	 * @throws IOException always
+	 */
+	@Override
+	public void mark(int readAheadLimit) throws IOException {
+		throw new IOException("mark() not supported");
+	}
+
+	/**
+	 * Resetting isn't supported
+	 *
+	 * @throws IOException always
+	 */
+	@Override
+	public void reset() throws IOException {
+		throw new IOException("reset() not supported");
+	}
+}
@@ -0,0 +1,110 @@
+package de.tudarmstadt.gdi1.project.cipher.io;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * A writer that translates everything before passing it on to another writer, for example a writer that encrypts
+ * a text into a file. The text is translated through a fixed size buffer, so the memory used doesn't grow with the
+ * length of the text.
+ */
+public class CipherWriter extends FilterWriter {
+
+	/**
+	 * size of the buffer the characters are translated in
+	 */
+	public static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * translates the characters and keeps track of their position in the text
+	 */
+	protected final StreamTranslator translator;
+
+	/**
+	 * the buffer the characters are translated in, the written arrays and strings are never changed
+	 */
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	/**
+	 * Creates a writer that translates the characters before writing them to out
+	 *
+	 * @param out        the writer to write to
+	 * @param translator the translator, for example {@link StreamTranslator#encrypting}
+	 */
+	public CipherWriter(Writer out, StreamTranslator translator) {
+		super(out);
+		this.translator = translator;
+	}
+
+	/**
+	 * Creates a writer that translates the characters and writes them to out in the given charset
+	 *
+	 * @param out        the stream to write to
+	 * @param charset    the charset of the stream
+	 * @param translator the translator, for example {@link StreamTranslator#encrypting}
+	 */
+	public CipherWriter(OutputStream out, Charset charset, StreamTranslator translator) {
+		this(new OutputStreamWriter(out, charset), translator);
+	}
+
+	/**
+	 * Translates and writes a single character
+	 *
+	 * @param c the character
+	 * @throws IOException if writing fails
+	 */
+	@Override
+	public void write(int c) throws IOException {
+		buffer[0] = (char) c;
+		translateAndWrite(1);
+	}
+
+	/**
+	 * Translates and writes a part of an array
+	 *
+	 * @param cbuf the characters
+	 * @param off  the position of the first character
+	 * @param len  the number of characters
+	 * @throws IOException if writing fails
+	 */
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		for(int start = 0; start < len; start += BUFFER_SIZE) {
+			int count = Math.min(BUFFER_SIZE, len - start);
+			System.arraycopy(cbuf, off + start, buffer, 0, count);
+			translateAndWrite(count);
+		}
+	}
+
+	/**
+	 * Translates and writes a part of a string
+	 *
+	 * @param str the string
+	 * @param off the position of the first character
+	 * @param len the number of characters
+	 * @throws IOException if writing fails
+	 */
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		for(int start = 0; start < len; start += BUFFER_SIZE) {
+			int count = Math.min(BUFFER_SIZE, len - start);
+			str.getChars(off + start, off + start + count, buffer, 0);
+			translateAndWrite(count);
+		}
+	}
+
+	/**
+	 * Translates the first len characters of the buffer and writes them
+	 *
+	 * @param len the number of characters in the buffer
+	 * @throws IOException if writing fails
+	 */
+	private void translateAndWrite(int len) throws IOException {
+		translator.translate(buffer, 0, len);
+		out.write(buffer, 0, len);
+	}
+}
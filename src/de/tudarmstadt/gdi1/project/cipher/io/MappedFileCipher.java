@@ -0,0 +1,237 @@
+package de.tudarmstadt.gdi1.project.cipher.io;
+
+import de.tudarmstadt.gdi1.project.cipher.substitution.PeriodicSubstitutionCipher;
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Encrypts or decrypts whole files with a cipher whose output only depends on the character and its position.
+ * Input and output are memory mapped and split into chunks, which are translated in parallel on the
+ * {@link SharedForkJoinPool}, every chunk starting at its own position in the text.
+ * <p/>
+ * Files are read and written as ISO-8859-1, so every byte is one character and the position of a character is its
+ * offset in the file.
+ * <p/>
+ * The mapped chunks are only unmapped when the garbage collector collects their buffers, there is no way to unmap them
+ * earlier. Until then they take up address space, which can run out for very large files on 32 bit JVMs, and on
+ * Windows the files stay locked, so they can't be deleted or renamed right after a call returns, even though the files
+ * themselves have been closed.
+ */
+public class MappedFileCipher {
+
+	/**
+	 * the size of the chunks a file is split into if no other size is given
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * chunks start at multiples of this, so they line up with the pages of the file
+	 */
+	protected static final int PAGE_SIZE = 4096;
+
+	/**
+	 * the cipher
+	 */
+	protected final PeriodicSubstitutionCipher cipher;
+
+	/**
+	 * the size of the chunks a file is split into, a multiple of {@link #PAGE_SIZE}
+	 */
+	protected final long chunkSize;
+
+	/**
+	 * Creates a file cipher that splits files into chunks of {@link #DEFAULT_CHUNK_SIZE} bytes
+	 *
+	 * @param cipher the cipher to encrypt and decrypt with
+	 */
+	public MappedFileCipher(PeriodicSubstitutionCipher cipher) {
+		this(cipher, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a file cipher
+	 *
+	 * @param cipher    the cipher to encrypt and decrypt with
+	 * @param chunkSize the size of the chunks a file is split into, rounded down to a multiple of the page size but at
+	 *                  least one page
+	 */
+	public MappedFileCipher(PeriodicSubstitutionCipher cipher, int chunkSize) {
+		this.cipher = cipher;
+		// the chunk size has to be a multiple of the page size and at least one page
+		this.chunkSize = Math.max(PAGE_SIZE, chunkSize / PAGE_SIZE * PAGE_SIZE);
+	}
+
+	/**
+	 * Encrypts the input file into the output file. The output file is overwritten.
+	 *
+	 * @param input  the plaintext file
+	 * @param output the ciphertext file, not the input file
+	 * @throws IOException if reading or writing fails
+	 * @throws IllegalArgumentException if input and output are the same file
+	 * @throws de.tudarmstadt.gdi1.project.exception.InvalidCharacterException if a character isn't in the alphabet
+	 */
+	public void encrypt(File input, File output) throws IOException {
+		translate(input, output, ByteTranslator.encrypting(cipher));
+	}
+
+	/**
+	 * Decrypts the input file into the output file. The output file is overwritten.
+	 *
+	 * @param input  the ciphertext file
+	 * @param output the plaintext file, not the input file
+	 * @throws IOException if reading or writing fails
+	 * @throws IllegalArgumentException if input and output are the same file
+	 * @throws de.tudarmstadt.gdi1.project.exception.InvalidCharacterException if a character isn't in the alphabet
+	 */
+	public void decrypt(File input, File output) throws IOException {
+		translate(input, output, ByteTranslator.decrypting(cipher));
+	}
+
+	/**
+	 * Translates the input file into the output file
+	 *
+	 * @param input      the input file
+	 * @param output     the output file
+	 * @param translator translates the chunks, only its stateless part is used, so all chunks can share it
+	 * @throws IOException if reading or writing fails
+	 * @throws IllegalArgumentException if input and output are the same file
+	 */
+	protected void translate(File input, File output, ByteTranslator translator) throws IOException {
+		// the output is written while the input is still mapped, so the same file would be overwritten with what is
+		// read from it
+		if(input.getCanonicalFile().equals(output.getCanonicalFile())) {
+			throw new IllegalArgumentException(input + " can't be both input and output");
+		}
+		RandomAccessFile in = new RandomAccessFile(input, "r");
+		try {
+			RandomAccessFile out = new RandomAccessFile(output, "rw");
+			try {
+				long size = in.length();
+				out.setLength(size);
+
+				try {
+					SharedForkJoinPool.get().invoke(new ChunkTask(in.getChannel(), out.getChannel(), translator, chunkSize, 0, size));
+				} catch(ChunkFailedException e) {
+					throw e.getCause();
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Translates a range of the file, either by splitting it in half or, if it's at most one chunk long, directly
+	 */
+	private static class ChunkTask extends RecursiveAction {
+
+		/**
+		 * the input file
+		 */
+		private final FileChannel in;
+
+		/**
+		 * the output file
+		 */
+		private final FileChannel out;
+
+		/**
+		 * the translator
+		 */
+		private final ByteTranslator translator;
+
+		/**
+		 * the size of a chunk
+		 */
+		private final long chunkSize;
+
+		/**
+		 * the first byte of the range
+		 */
+		private final long from;
+
+		/**
+		 * the byte after the range
+		 */
+		private final long to;
+
+		/**
+		 * Creates the task
+		 *
+		 * @param in         the input file
+		 * @param out        the output file
+		 * @param translator the translator
+		 * @param chunkSize  the size of a chunk
+		 * @param from       the first byte of the range
+		 * @param to         the byte after the range
+		 */
+		public ChunkTask(FileChannel in, FileChannel out, ByteTranslator translator, long chunkSize, long from, long to) {
+			this.in = in;
+			this.out = out;
+			this.translator = translator;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > chunkSize) {
+				// split in the middle, at a chunk boundary
+				long middle = from + (to - from) / chunkSize / 2 * chunkSize;
+				if(middle == from) {
+					middle += chunkSize;
+				}
+				invokeAll(new ChunkTask(in, out, translator, chunkSize, from, middle), new ChunkTask(in, out, translator, chunkSize, middle, to));
+				return;
+			}
+
+			try {
+				translateChunk();
+			} catch(IOException e) {
+				throw new ChunkFailedException(e);
+			}
+		}
+
+		/**
+		 * Maps the range in both files and translates it directly from one mapping into the other. The mappings stay
+		 * until the garbage collector collects the buffers.
+		 *
+		 * @throws IOException if mapping fails
+		 */
+		private void translateChunk() throws IOException {
+			int length = (int) (to - from);
+			MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, from, length);
+			MappedByteBuffer destination = out.map(FileChannel.MapMode.READ_WRITE, from, length);
+			translator.translate(source, destination, from);
+		}
+	}
+
+	/**
+	 * carries an IOException out of a chunk task
+	 */
+	private static class ChunkFailedException extends RuntimeException {
+
+		/**
+		 * Creates the exception
+		 *
+		 * @param cause the IOException
+		 */
+		public ChunkFailedException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package de.tudarmstadt.gdi1.project.cipher.io;
+
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaSession;
+import de.tudarmstadt.gdi1.project.cipher.substitution.PeriodicSubstitutionCipher;
+import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipher;
+import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipherImpl;
+
+import java.io.IOException;
+
+/**
+ * Translates a text that arrives in several buffers one after another. The translator remembers how many characters
+ * it has already translated, so every buffer is translated as part of the whole text.
+ */
+public abstract class StreamTranslator {
+
+	/**
+	 * the number of characters translated so far
+	 */
+	protected long position;
+
+	/**
+	 * Translates len characters of text starting at off in place and moves on by len characters
+	 *
+	 * @param text the buffer
+	 * @param off  the position of the first character in the buffer
+	 * @param len  the number of characters to translate
+	 * @throws IOException if the characters can't be translated
+	 */
+	public void translate(char[] text, int off, int len) throws IOException {
+		translate(text, off, len, position);
+		position += len;
+	}
+
+	/**
+	 * Translates len characters of text starting at off in place
+	 *
+	 * @param text     the buffer
+	 * @param off      the position of the first character in the buffer
+	 * @param len      the number of characters to translate
+	 * @param position the position of the first character in the whole text
+	 * @throws IOException if the characters can't be translated
+	 */
+	protected abstract void translate(char[] text, int off, int len, long position) throws IOException;
+
+	/**
+	 * @return the number of characters translated so far
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Creates a translator that encrypts with the given cipher
+	 *
+	 * @param cipher the cipher
+	 * @return the translator
+	 */
+	public static StreamTranslator encrypting(SubstitutionCipher cipher) {
+		return new SubstitutionTranslator(cipher, true);
+	}
+
+	/**
+	 * Creates a translator that decrypts with the given cipher
+	 *
+	 * @param cipher the cipher
+	 * @return the translator
+	 */
+	public static StreamTranslator decrypting(SubstitutionCipher cipher) {
+		return new SubstitutionTranslator(cipher, false);
+	}
+
+	/**
+	 * Creates a translator that passes the text through the enigma. Encryption and decryption are the same for an
+	 * enigma. The translator starts a new session, whose rotors keep turning from one buffer to the next.
+	 *
+	 * @param enigma the enigma
+	 * @return the translator
+	 */
+	public static StreamTranslator of(EnigmaImpl enigma) {
+		return new EnigmaTranslator(enigma);
+	}
+
+	/**
+	 * translates with a substitution cipher, using its bulk methods if it has them
+	 */
+	private static class SubstitutionTranslator extends StreamTranslator {
+
+		/**
+		 * the cipher
+		 */
+		private final SubstitutionCipher cipher;
+
+		/**
+		 * true to encrypt, false to decrypt
+		 */
+		private final boolean encrypt;
+
+		/**
+		 * the period of the cipher, or 0 if it doesn't have one
+		 */
+		private final int period;
+
+		/**
+		 * Creates the translator
+		 *
+		 * @param cipher  the cipher
+		 * @param encrypt true to encrypt, false to decrypt
+		 */
+		public SubstitutionTranslator(SubstitutionCipher cipher, boolean encrypt) {
+			this.cipher = cipher;
+			this.encrypt = encrypt;
+			this.period = cipher instanceof PeriodicSubstitutionCipher ? ((PeriodicSubstitutionCipher) cipher).getPeriod() : 0;
+		}
+
+		@Override
+		protected void translate(char[] text, int off, int len, long position) throws IOException {
+			// the cipher only takes int positions, so reduce the position by the period if we know it
+			if(period > 0) {
+				position %= period;
+			} else if(position + len > Integer.MAX_VALUE) {
+				throw new IOException("The text is too long for a cipher without a period");
+			}
+			int startPos = (int) position;
+
+			if(cipher instanceof SubstitutionCipherImpl) {
+				// use the bulk methods
+				if(encrypt) {
+					((SubstitutionCipherImpl) cipher).encrypt(text, off, len, startPos);
+				} else {
+					((SubstitutionCipherImpl) cipher).decrypt(text, off, len, startPos);
+				}
+			} else {
+				for(int i = 0; i < len; i++) {
+					text[off + i] = encrypt ? cipher.translate(text[off + i], startPos + i) : cipher.reverseTranslate(text[off + i], startPos + i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * translates with an enigma, whose rotors carry the state from one buffer to the next
+	 */
+	private static class EnigmaTranslator extends StreamTranslator {
+
+		/**
+		 * the session of the enigma, which keeps the positions of the rotors
+		 */
+		private final EnigmaSession session;
+
+		/**
+		 * Creates the translator with a new session of the enigma
+		 *
+		 * @param enigma the enigma
+		 */
+		public EnigmaTranslator(EnigmaImpl enigma) {
+			this.session = enigma.newSession();
+		}
+
+		@Override
+		protected void translate(char[] text, int off, int len, long position) {
+			// turn the rotors to the position if the text doesn't continue where the last part stopped
+			if(session.getCount() != position) {
+				session.seek(position);
+			}
+			session.encrypt(text, off, len, text, off);
+		}
+	}
+}
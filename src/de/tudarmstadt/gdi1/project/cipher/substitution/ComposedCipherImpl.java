@@ -0,0 +1,165 @@
+package de.tudarmstadt.gdi1.project.cipher.substitution;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.MonoalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.PolyalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+
+/**
+ * Applies several substitution ciphers one after another in a single pass: encrypting passes every character through
+ * all ciphers in order, decrypting passes it back through all ciphers in reverse order. No intermediate texts are
+ * created.
+ * <p/>
+ * Use {@link #compose(SubstitutionCipher...)} to get the fastest cipher for a chain: it fuses chains of periodic
+ * ciphers into a single monoalphabetic cipher or a single tableau and only falls back to this class if that isn't
+ * possible.
+ */
+public class ComposedCipherImpl extends SubstitutionCipherImpl {
+
+	/**
+	 * chains whose fused tableau would have a longer period than this are not fused, unless another limit is given
+	 */
+	public static final int MAX_FUSED_PERIOD = 1 << 12;
+
+	/**
+	 * the ciphers in the order they encrypt
+	 */
+	protected final SubstitutionCipher[] ciphers;
+
+	/**
+	 * Creates a cipher that applies the given ciphers one after another
+	 *
+	 * @param ciphers the ciphers in the order they encrypt
+	 */
+	public ComposedCipherImpl(SubstitutionCipher... ciphers) {
+		if(ciphers.length == 0) {
+			throw new IllegalArgumentException("At least one cipher is needed");
+		}
+		this.ciphers = ciphers.clone();
+	}
+
+	/**
+	 * Composes the ciphers into one cipher that applies them one after another. If all ciphers are periodic, the chain
+	 * is fused: a chain of monoalphabetic ciphers becomes one {@link MonoalphabeticCipherImpl}, a chain with
+	 * polyalphabetic ciphers one {@link PolyalphabeticCipherImpl} whose period is the least common multiple of their
+	 * periods. Otherwise, or if the period would get larger than {@link #MAX_FUSED_PERIOD}, or if a cipher can't
+	 * translate every output of the one before it, the ciphers are chained by a {@link ComposedCipherImpl}.
+	 *
+	 * @param ciphers the ciphers in the order they encrypt
+	 * @return the composed cipher
+	 */
+	public static SubstitutionCipher compose(SubstitutionCipher... ciphers) {
+		return compose(MAX_FUSED_PERIOD, ciphers);
+	}
+
+	/**
+	 * Composes the ciphers like {@link #compose(SubstitutionCipher...)}, but only fuses them if the period of the
+	 * fused tableau is at most maxPeriod
+	 *
+	 * @param maxPeriod the longest period of a fused tableau
+	 * @param ciphers   the ciphers in the order they encrypt
+	 * @return the composed cipher
+	 */
+	public static SubstitutionCipher compose(int maxPeriod, SubstitutionCipher... ciphers) {
+		SubstitutionCipher fused = fuse(maxPeriod, ciphers);
+		return fused != null ? fused : new ComposedCipherImpl(ciphers);
+	}
+
+	/**
+	 * Fuses the ciphers into a single table
+	 *
+	 * @param maxPeriod the longest period of the table
+	 * @param ciphers   the ciphers in the order they encrypt
+	 * @return the fused cipher, or null if the ciphers can't be fused
+	 */
+	protected static PeriodicSubstitutionCipher fuse(int maxPeriod, SubstitutionCipher... ciphers) {
+		if(ciphers.length == 0) {
+			return null;
+		}
+
+		// the fused period is the least common multiple of all periods
+		long period = 1;
+		for(SubstitutionCipher cipher : ciphers) {
+			if(!(cipher instanceof PeriodicSubstitutionCipher)) {
+				return null;
+			}
+			int p = ((PeriodicSubstitutionCipher) cipher).getPeriod();
+			period = period / gcd(period, p) * p;
+			if(period > maxPeriod) {
+				return null;
+			}
+		}
+
+		// pass every character of the first alphabet through the whole chain, once for every position in the period
+		Alphabet source = ((PeriodicSubstitutionCipher) ciphers[0]).getSourceAlphabet();
+		Alphabet[] destinations = new Alphabet[(int) period];
+		for(int p = 0; p < period; p++) {
+			Character[] destination = new Character[source.size()];
+			for(int j = 0; j < source.size(); j++) {
+				char c = source.getChar(j);
+				try {
+					for(SubstitutionCipher cipher : ciphers) {
+						c = cipher.translate(c, p);
+					}
+				} catch(InvalidCharacterException e) {
+					// a cipher in the middle can't handle this character, so only the chain can report that
+					return null;
+				}
+				destination[j] = c;
+			}
+			destinations[p] = new AlphabetImpl(destination);
+		}
+
+		if(period == 1) {
+			return new MonoalphabeticCipherImpl(source, destinations[0]);
+		}
+		return new PolyalphabeticCipherImpl(source, destinations);
+	}
+
+	/**
+	 * Computes the greatest common divisor
+	 *
+	 * @param a the first number
+	 * @param b the second number
+	 * @return the greatest common divisor of a and b
+	 */
+	private static long gcd(long a, long b) {
+		while(b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Passes the character through all ciphers
+	 *
+	 * @param chr the character that needs to be translated
+	 * @param i   the position the character stands in the text
+	 * @return the translated/encrypted character
+	 */
+	@Override
+	public char translate(char chr, int i) {
+		for(SubstitutionCipher cipher : ciphers) {
+			chr = cipher.translate(chr, i);
+		}
+		return chr;
+	}
+
+	/**
+	 * Passes the character back through all ciphers in reverse order
+	 *
+	 * @param chr the character that needs to be reversetranslated
+	 * @param i   the position of the character in the text
+	 * @return the reversetranslated/decrypted character
+	 */
+	@Override
+	public char reverseTranslate(char chr, int i) {
+		for(int j = ciphers.length - 1; j >= 0; j--) {
+			chr = ciphers[j].reverseTranslate(chr, i);
+		}
+		return chr;
+	}
+}
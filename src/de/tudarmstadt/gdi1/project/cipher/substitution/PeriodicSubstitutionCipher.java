@@ -0,0 +1,25 @@
+package de.tudarmstadt.gdi1.project.cipher.substitution;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+
+/**
+ * A substitution cipher whose translation of a character only depends on the character and its position modulo a fixed
+ * period. Positions can therefore be reduced by the period, which allows texts longer than an int can address.
+ */
+public interface PeriodicSubstitutionCipher extends SubstitutionCipher {
+
+	/**
+	 * Returns the period of the cipher. translate(chr, i) and translate(chr, i + getPeriod()) always return the same
+	 * character.
+	 *
+	 * @return the period, at least 1
+	 */
+	public int getPeriod();
+
+	/**
+	 * Returns the alphabet of the characters the cipher can encrypt
+	 *
+	 * @return the plain text alphabet
+	 */
+	public Alphabet getSourceAlphabet();
+}
@@ -1,11 +1,32 @@
 package de.tudarmstadt.gdi1.project.cipher.substitution;
 
 
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * basic Substituion cipher
  */
 public abstract class SubstitutionCipherImpl implements SubstitutionCipher {
 
+	/**
+	 * size of the buffer used to translate a CharSequence into an Appendable
+	 */
+	protected static final int BUFFER_SIZE = 4096;
+
+	/**
+	 * the threshold of {@link #getParallelThreshold()} for subclasses that allow parallel translation
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 18;
+
+	/**
+	 * the number of characters a single thread translates when translating in parallel
+	 */
+	protected static final int PARALLEL_RANGE_SIZE = 1 << 15;
 
 	/**
 	 * Encrypt a text according to the encryption method of the cipher
@@ -15,14 +36,10 @@ public abstract class SubstitutionCipherImpl implements SubstitutionCipher {
 	 */
 	@Override
 	public final String encrypt(String text) {
-		// translate every character individually and puts them together to a string
-		StringBuilder out = new StringBuilder();
+		// translate all characters in one go, directly in the copy of the text
 		char[] textArray = text.toCharArray();
-		for(int i = 0; i < textArray.length; i++) {
-			out.append(this.translate(textArray[i], i));
-		}
-
-		return out.toString();
+		encrypt(textArray, 0, textArray.length, 0);
+		return new String(textArray);
 	}
 
 	/**
@@ -33,13 +50,328 @@ public abstract class SubstitutionCipherImpl implements SubstitutionCipher {
 	 */
 	@Override
 	public final String decrypt(String text) {
-		// reverseTranslate every character individually and puts them together to a string
-		StringBuilder out = new StringBuilder();
+		// reverseTranslate all characters in one go, directly in the copy of the text
 		char[] textArray = text.toCharArray();
-		for(int i = 0; i < textArray.length; i++) {
-			out.append(this.reverseTranslate(textArray[i], i));
+		decrypt(textArray, 0, textArray.length, 0);
+		return new String(textArray);
+	}
+
+	/**
+	 * Encrypts len characters of src starting at srcOff and writes them to dst starting at dstOff.
+	 * The first character is treated as if it stood at position startPos of the text, so a long text can be encrypted
+	 * in several parts. src and dst may be the same array.
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 */
+	public final void encrypt(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(len >= getParallelThreshold()) {
+			translateParallel(src, srcOff, len, dst, dstOff, startPos, true);
+		} else {
+			encryptSequential(src, srcOff, len, dst, dstOff, startPos);
+		}
+	}
+
+	/**
+	 * Decrypts len characters of src starting at srcOff and writes them to dst starting at dstOff.
+	 * The first character is treated as if it stood at position startPos of the text, so a long text can be decrypted
+	 * in several parts. src and dst may be the same array.
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 */
+	public final void decrypt(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(len >= getParallelThreshold()) {
+			translateParallel(src, srcOff, len, dst, dstOff, startPos, false);
+		} else {
+			decryptSequential(src, srcOff, len, dst, dstOff, startPos);
+		}
+	}
+
+	/**
+	 * Returns the number of characters from which on a text is split into ranges that are translated on several
+	 * threads at the same time. Parallel translation is opt-in: by default this is Integer.MAX_VALUE, so every text is
+	 * translated on the calling thread. A subclass may only return less if its translate, reverseTranslate,
+	 * encryptBlock and decryptBlock can be called by several threads at once.
+	 *
+	 * @return the smallest number of characters that is translated in parallel
+	 */
+	protected int getParallelThreshold() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Encrypts a part of the text on the current thread
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 */
+	private void encryptSequential(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		// use the subclass' loop if it has one, otherwise translate every character on its own
+		if(!encryptBlock(src, srcOff, len, dst, dstOff, startPos)) {
+			for(int i = 0; i < len; i++) {
+				dst[dstOff + i] = this.translate(src[srcOff + i], startPos + i);
+			}
+		}
+	}
+
+	/**
+	 * Decrypts a part of the text on the current thread
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 */
+	private void decryptSequential(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		// use the subclass' loop if it has one, otherwise reverseTranslate every character on its own
+		if(!decryptBlock(src, srcOff, len, dst, dstOff, startPos)) {
+			for(int i = 0; i < len; i++) {
+				dst[dstOff + i] = this.reverseTranslate(src[srcOff + i], startPos + i);
+			}
+		}
+	}
+
+	/**
+	 * Splits the text into ranges and translates them in parallel. Every range knows its position in the text, so the
+	 * result is the same as translating the text on one thread.
+	 *
+	 * @param src      the input
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to translate
+	 * @param dst      the array the output is written to
+	 * @param dstOff   the position in dst the first character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @param encrypt  true to encrypt, false to decrypt
+	 */
+	private void translateParallel(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos, boolean encrypt) {
+		RangeTask task = new RangeTask(src, srcOff, len, dst, dstOff, startPos, encrypt);
+		// if we're already running in a pool (for example in a chunk of a file), just fork into that pool
+		if(ForkJoinTask.inForkJoinPool()) {
+			task.invoke();
+		} else {
+			SharedForkJoinPool.get().invoke(task);
+		}
+	}
+
+	/**
+	 * Translates a range of the text, either by splitting it in half or, if it's small enough, directly
+	 */
+	private class RangeTask extends RecursiveAction {
+		/**
+		 * the input
+		 */
+		private final char[] src;
+
+		/**
+		 * the position of the first character in src
+		 */
+		private final int srcOff;
+
+		/**
+		 * the number of characters to translate
+		 */
+		private final int len;
+
+		/**
+		 * the output
+		 */
+		private final char[] dst;
+
+		/**
+		 * the position in dst the first character is written to
+		 */
+		private final int dstOff;
+
+		/**
+		 * the position of the first character in the whole text
+		 */
+		private final int startPos;
+
+		/**
+		 * true to encrypt, false to decrypt
+		 */
+		private final boolean encrypt;
+
+		/**
+		 * Creates the task, see {@link #translateParallel} for the parameters
+		 */
+		public RangeTask(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos, boolean encrypt) {
+			this.src = src;
+			this.srcOff = srcOff;
+			this.len = len;
+			this.dst = dst;
+			this.dstOff = dstOff;
+			this.startPos = startPos;
+			this.encrypt = encrypt;
+		}
+
+		@Override
+		protected void compute() {
+			if(len > PARALLEL_RANGE_SIZE) {
+				// split in the middle, both halves keep their position in the text
+				int half = len / 2;
+				invokeAll(new RangeTask(src, srcOff, half, dst, dstOff, startPos, encrypt),
+						new RangeTask(src, srcOff + half, len - half, dst, dstOff + half, startPos + half, encrypt));
+			} else if(encrypt) {
+				encryptSequential(src, srcOff, len, dst, dstOff, startPos);
+			} else {
+				decryptSequential(src, srcOff, len, dst, dstOff, startPos);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a method that translates one character, {@code "translate"} or {@code "reverseTranslate"}, is
+	 * still the one of the given class. A block hook that works with the tables of that class may only be used if so,
+	 * otherwise a subclass that overrides the method would be ignored by encrypt and decrypt.
+	 *
+	 * @param owner the class whose block hook wants to replace the method
+	 * @param name  the name of the method
+	 * @return true if the method of this cipher is declared by owner
+	 */
+	protected final boolean isDeclaredBy(Class<?> owner, String name) {
+		try {
+			return getClass().getMethod(name, char.class, int.class).getDeclaringClass() == owner;
+		} catch(NoSuchMethodException e) {
+			// every substitution cipher has both methods
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Hook for subclasses that can encrypt a whole block faster than by calling {@link #translate(char, int)} for
+	 * every character. The result has to be the same as translating every character on its own.
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @return true if the block was encrypted, false if every character should be translated on its own
+	 */
+	protected boolean encryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		return false;
+	}
+
+	/**
+	 * Hook for subclasses that can decrypt a whole block faster than by calling {@link #reverseTranslate(char, int)}
+	 * for every character. The result has to be the same as translating every character on its own.
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @return true if the block was decrypted, false if every character should be translated on its own
+	 */
+	protected boolean decryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		return false;
+	}
+
+	/**
+	 * Encrypts len characters of text starting at off in place
+	 *
+	 * @param text     the plaintext, gets replaced by the ciphertext
+	 * @param off      the position of the first character
+	 * @param len      the number of characters to encrypt
+	 * @param startPos the position of the first character in the whole text
+	 */
+	public final void encrypt(char[] text, int off, int len, int startPos) {
+		encrypt(text, off, len, text, off, startPos);
+	}
+
+	/**
+	 * Decrypts len characters of text starting at off in place
+	 *
+	 * @param text     the ciphertext, gets replaced by the plaintext
+	 * @param off      the position of the first character
+	 * @param len      the number of characters to decrypt
+	 * @param startPos the position of the first character in the whole text
+	 */
+	public final void decrypt(char[] text, int off, int len, int startPos) {
+		decrypt(text, off, len, text, off, startPos);
+	}
+
+	/**
+	 * Encrypts the text and appends the ciphertext to out
+	 *
+	 * @param text     the plaintext
+	 * @param out      the output, for example a StringBuilder or a Writer
+	 * @param startPos the position of the first character in the whole text
+	 * @throws IOException if the output throws one
+	 */
+	public final void encrypt(CharSequence text, Appendable out, int startPos) throws IOException {
+		translate(text, out, startPos, true);
+	}
+
+	/**
+	 * Decrypts the text and appends the plaintext to out
+	 *
+	 * @param text     the ciphertext
+	 * @param out      the output, for example a StringBuilder or a Writer
+	 * @param startPos the position of the first character in the whole text
+	 * @throws IOException if the output throws one
+	 */
+	public final void decrypt(CharSequence text, Appendable out, int startPos) throws IOException {
+		translate(text, out, startPos, false);
+	}
+
+	/**
+	 * Translates a CharSequence into an Appendable through a small buffer, so the text is never copied as a whole
+	 *
+	 * @param text     the text to translate
+	 * @param out      the output
+	 * @param startPos the position of the first character in the whole text
+	 * @param encrypt  true to encrypt, false to decrypt
+	 * @throws IOException if the output throws one
+	 */
+	private void translate(CharSequence text, Appendable out, int startPos, boolean encrypt) throws IOException {
+		char[] buffer = new char[Math.min(BUFFER_SIZE, text.length())];
+		for(int start = 0; start < text.length(); start += buffer.length) {
+			int len = Math.min(buffer.length, text.length() - start);
+			// fill the buffer
+			if(text instanceof String) {
+				((String) text).getChars(start, start + len, buffer, 0);
+			} else {
+				for(int i = 0; i < len; i++) {
+					buffer[i] = text.charAt(start + i);
+				}
+			}
+
+			if(encrypt) {
+				encrypt(buffer, 0, len, startPos + start);
+			} else {
+				decrypt(buffer, 0, len, startPos + start);
+			}
+
+			// write the buffer without creating a String if the output allows it
+			if(out instanceof Writer) {
+				((Writer) out).write(buffer, 0, len);
+			} else if(out instanceof StringBuilder) {
+				((StringBuilder) out).append(buffer, 0, len);
+			} else {
+				for(int i = 0; i < len; i++) {
+					out.append(buffer[i]);
+				}
+			}
 		}
-		return out.toString();
 	}
 
 	/**
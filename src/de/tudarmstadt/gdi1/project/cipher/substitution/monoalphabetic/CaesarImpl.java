@@ -1,13 +1,25 @@
 package de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
-import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.AlphabetRotations;
+import de.tudarmstadt.gdi1.project.utils.ShiftKernel;
 
 /**
  *  caesar cipher
  */
 public class CaesarImpl extends MonoalphabeticCipherImpl implements Caesar {
 
+	/**
+	 * true if the source alphabet is contiguous, so the characters can simply be shifted by adding the key
+	 */
+	protected final boolean contiguous;
+
+	/**
+	 * the key, brought into the range of the alphabet
+	 */
+	protected final int shift;
+
 	/**
 	 * Constructor to create a Ceasar-Cipher
 	 *
@@ -15,6 +27,59 @@ public class CaesarImpl extends MonoalphabeticCipherImpl implements Caesar {
 	 * @param source the source alphabet
 	 */
 	public CaesarImpl(int key, Alphabet source) {
-		super(source, new UtilsImpl().shiftAlphabet(source, key));
+		// the shifted alphabet is shared with every other cipher over the same alphabet
+		super(source, AlphabetRotations.of(source).getShifted(key));
+		this.contiguous = ShiftKernel.isContiguous(source);
+		this.shift = contiguous ? ShiftKernel.normalize(key, source.size()) : 0;
+	}
+
+	/**
+	 * Encrypts by adding the key if the alphabet is contiguous, otherwise with the lookup table.
+	 * Nothing of both if a subclass overrides {@link #translate(char, int)}.
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text (doesn't matter for this cipher)
+	 * @return true if the block was translated
+	 */
+	@Override
+	protected boolean encryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		// the kernel replaces translate just like the table does
+		if(!contiguous || !tableEncrypt) {
+			return super.encryptBlock(src, srcOff, len, dst, dstOff, startPos);
+		}
+		int invalid = ShiftKernel.shift(src, srcOff, len, dst, dstOff, source.getChar(0), source.size(), shift);
+		if(invalid != ShiftKernel.OK) {
+			throw new InvalidCharacterException("can't encrypt the character '" + src[srcOff + invalid] + "', because it isn't in the alphabet provided");
+		}
+		return true;
+	}
+
+	/**
+	 * Decrypts by subtracting the key if the alphabet is contiguous, otherwise with the lookup table.
+	 * Nothing of both if a subclass overrides {@link #reverseTranslate(char, int)}.
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text (doesn't matter for this cipher)
+	 * @return true if the block was translated
+	 */
+	@Override
+	protected boolean decryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(!contiguous || !tableDecrypt) {
+			return super.decryptBlock(src, srcOff, len, dst, dstOff, startPos);
+		}
+		// subtracting the key is the same as adding its complement
+		int invalid = ShiftKernel.shift(src, srcOff, len, dst, dstOff, source.getChar(0), source.size(), ShiftKernel.normalize(-shift, source.size()));
+		if(invalid != ShiftKernel.OK) {
+			throw new InvalidCharacterException("can't decrypt the character '" + src[srcOff + invalid] + "', because it isn't in the alphabet provided");
+		}
+		return true;
 	}
 }
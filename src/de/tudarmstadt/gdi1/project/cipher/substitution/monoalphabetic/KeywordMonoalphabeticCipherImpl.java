@@ -18,8 +18,19 @@ public class KeywordMonoalphabeticCipherImpl extends MonoalphabeticCipherImpl im
 	 * @param alphabet the source alphabet
 	 */
 	public KeywordMonoalphabeticCipherImpl(String password, Alphabet alphabet) {
-		super(alphabet, alphabet);
+		// the destination has to be known before the cipher compiles its lookup tables
+		super(alphabet, createDestination(password, alphabet));
+	}
 
+	/**
+	 * Computes the destination alphabet for a keyword: the keyword without duplicates followed by the rest of the
+	 * alphabet in reverse order
+	 *
+	 * @param password the word, that will be used for the beginning of the destination Alphabet
+	 * @param alphabet the source alphabet
+	 * @return the destination alphabet
+	 */
+	protected static Alphabet createDestination(String password, Alphabet alphabet) {
 		char[] sourceArray = alphabet.asCharArray();
 		ArrayList<Character> passList = new ArrayList<Character>();
 
@@ -54,8 +65,7 @@ public class KeywordMonoalphabeticCipherImpl extends MonoalphabeticCipherImpl im
 			destArray[i] = reversAlph.getChar(i - passList.size());
 		}
 
-		//finaly setting the destination to the right alphabet
-		this.destination = new AlphabetImpl(destArray);
-
+		//finaly returning the right destination alphabet
+		return new AlphabetImpl(destArray);
 	}
 }
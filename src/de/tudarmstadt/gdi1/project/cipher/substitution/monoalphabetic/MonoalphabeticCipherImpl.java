@@ -1,24 +1,47 @@
 package de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.substitution.PeriodicSubstitutionCipher;
 import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipherImpl;
 import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
 
 /**
- * mono alphabetic cipher
+ * mono alphabetic cipher. The cipher never changes after it has been created, so one instance can be used by several
+ * threads at the same time.
  *
  */
-public class MonoalphabeticCipherImpl extends SubstitutionCipherImpl implements MonoalphabeticCipher {
+public class MonoalphabeticCipherImpl extends SubstitutionCipherImpl implements MonoalphabeticCipher, PeriodicSubstitutionCipher {
 
 	/**
 	 * the source alphabet
 	 */
-	protected Alphabet source;
+	protected final Alphabet source;
 
 	/**
 	 * the cipher alphabet
 	 */
-	protected Alphabet destination;
+	protected final Alphabet destination;
+
+	/**
+	 * maps every character of the source alphabet to its encrypted character
+	 */
+	protected final CharTable encryptTable;
+
+	/**
+	 * maps every character of the destination alphabet to its decrypted character
+	 */
+	protected final CharTable decryptTable;
+
+	/**
+	 * true if {@link #translate(char, int)} isn't overridden, so encrypting a block may use the table directly
+	 */
+	protected final boolean tableEncrypt;
+
+	/**
+	 * true if {@link #reverseTranslate(char, int)} isn't overridden, so decrypting a block may use the table directly
+	 */
+	protected final boolean tableDecrypt;
 
 	/**
 	 * Default constructor to create a new monoalphabetic cipher
@@ -29,6 +52,14 @@ public class MonoalphabeticCipherImpl extends SubstitutionCipherImpl implements
 	public MonoalphabeticCipherImpl(Alphabet source, Alphabet destination) {
 		this.source = source;
 		this.destination = destination;
+
+		// compile the mapping into lookup tables, so translating a character doesn't need to search the alphabets
+		char[] sourceChars = source.asCharArray();
+		char[] destinationChars = destination.asCharArray();
+		this.encryptTable = new CharTable(sourceChars, destinationChars);
+		this.decryptTable = new CharTable(destinationChars, sourceChars);
+		this.tableEncrypt = isDeclaredBy(MonoalphabeticCipherImpl.class, "translate");
+		this.tableDecrypt = isDeclaredBy(MonoalphabeticCipherImpl.class, "reverseTranslate");
 	}
 
 	/**
@@ -41,10 +72,11 @@ public class MonoalphabeticCipherImpl extends SubstitutionCipherImpl implements
 	 */
 	@Override
 	public char translate(char chr, int i) {
-		if(!source.contains(chr)) {
+		int ret = encryptTable.get(chr);
+		if(ret == CharTable.UNMAPPED) {
 			throw new InvalidCharacterException("can't encrypt the character '" + chr + "', because it isn't in the alphabet provided");
 		}
-		return destination.getChar(source.getIndex(chr));
+		return (char) ret;
 	}
 
 	/**
@@ -57,9 +89,101 @@ public class MonoalphabeticCipherImpl extends SubstitutionCipherImpl implements
 	 */
 	@Override
 	public char reverseTranslate(char chr, int i) {
-		if(!destination.contains(chr)) {
+		int ret = decryptTable.get(chr);
+		if(ret == CharTable.UNMAPPED) {
 			throw new InvalidCharacterException("can't decrypt the character '" + chr + "', because it isn't in the alphabet provided");
 		}
-		return source.getChar(destination.getIndex(chr));
+		return (char) ret;
+	}
+
+	/**
+	 * The lookup tables are never changed after the constructor, so several threads can translate with them at once
+	 *
+	 * @return {@link #DEFAULT_PARALLEL_THRESHOLD}
+	 */
+	@Override
+	protected int getParallelThreshold() {
+		return DEFAULT_PARALLEL_THRESHOLD;
+	}
+
+	/**
+	 * A monoalphabetic cipher ignores the position of the character
+	 *
+	 * @return always 1
+	 */
+	@Override
+	public int getPeriod() {
+		return 1;
+	}
+
+	/**
+	 * @return the source alphabet
+	 */
+	@Override
+	public Alphabet getSourceAlphabet() {
+		return source;
+	}
+
+	/**
+	 * Encrypts len characters of src starting at srcOff with a single table lookup per character, unless a subclass
+	 * overrides {@link #translate(char, int)}
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text (doesn't matter for this cipher)
+	 * @return true if the block was encrypted
+	 */
+	@Override
+	protected boolean encryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(!tableEncrypt) {
+			return false;
+		}
+		lookup(encryptTable, src, srcOff, len, dst, dstOff, "encrypt");
+		return true;
+	}
+
+	/**
+	 * Decrypts len characters of src starting at srcOff with a single table lookup per character, unless a subclass
+	 * overrides {@link #reverseTranslate(char, int)}
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text (doesn't matter for this cipher)
+	 * @return true if the block was decrypted
+	 */
+	@Override
+	protected boolean decryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(!tableDecrypt) {
+			return false;
+		}
+		lookup(decryptTable, src, srcOff, len, dst, dstOff, "decrypt");
+		return true;
+	}
+
+	/**
+	 * Replaces every character by its value in the table
+	 *
+	 * @param table  the table to use
+	 * @param src    the input
+	 * @param srcOff the position of the first character in src
+	 * @param len    the number of characters
+	 * @param dst    the output
+	 * @param dstOff the position of the first character in dst
+	 * @param action "encrypt" or "decrypt", used for the error message
+	 */
+	private static void lookup(CharTable table, char[] src, int srcOff, int len, char[] dst, int dstOff, String action) {
+		for(int i = 0; i < len; i++) {
+			int c = table.get(src[srcOff + i]);
+			if(c == CharTable.UNMAPPED) {
+				throw new InvalidCharacterException("can't " + action + " the character '" + src[srcOff + i] + "', because it isn't in the alphabet provided");
+			}
+			dst[dstOff + i] = (char) c;
+		}
 	}
 }
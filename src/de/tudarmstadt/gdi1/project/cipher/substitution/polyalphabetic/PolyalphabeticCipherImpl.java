@@ -1,32 +1,54 @@
 package de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.substitution.PeriodicSubstitutionCipher;
 import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipherImpl;
 import de.tudarmstadt.gdi1.project.exception.InvalidAlphabetListException;
 import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.CharTable;
 
 /**
- * a basic polyalphabetic cipher
+ * a basic polyalphabetic cipher. The cipher never changes after it has been created, so one instance can be used by
+ * several threads at the same time.
  *
  */
-public class PolyalphabeticCipherImpl extends SubstitutionCipherImpl implements PolyalphabeticCipher {
+public class PolyalphabeticCipherImpl extends SubstitutionCipherImpl implements PolyalphabeticCipher, PeriodicSubstitutionCipher {
 
 	/**
 	 * the plain text alphabet
 	 */
-	protected Alphabet plaintTextAlphabet;
+	protected final Alphabet plaintTextAlphabet;
 
 	/**
 	 * all the cipher text aphabets
 	 */
-	protected Alphabet[] cipherTextAlphabets;
+	protected final Alphabet[] cipherTextAlphabets;
 
 	/**
-	 * Default constructor to be used in case an implementation needs to calculate its own alphabets
+	 * maps every character of the plain text alphabet to its index
 	 */
-	protected PolyalphabeticCipherImpl() {
-		// this function is used in case an implementation needs to calculate its own alphabets
-	}
+	protected final CharTable plainIndex;
+
+	/**
+	 * the tableau: encrypted[p][index] is the encryption of the plain text character with the given index at a
+	 * position p in the period
+	 */
+	protected final char[][] encrypted;
+
+	/**
+	 * maps every character of a cipher text alphabet to its decrypted character, one table per position in the period
+	 */
+	protected final CharTable[] decrypted;
+
+	/**
+	 * true if {@link #translate(char, int)} isn't overridden, so encrypting a block may use the tableau directly
+	 */
+	protected final boolean tableauEncrypt;
+
+	/**
+	 * true if {@link #reverseTranslate(char, int)} isn't overridden, so decrypting a block may use the tables directly
+	 */
+	protected final boolean tableauDecrypt;
 
 	/**
 	 * Create a new Polyalhpabetic cipher
@@ -39,7 +61,20 @@ public class PolyalphabeticCipherImpl extends SubstitutionCipherImpl implements
 			throw new InvalidAlphabetListException("The list of alphabets must include at least one alphabet!");
 		}
 		this.plaintTextAlphabet = plaintTextAlphabet;
-		this.cipherTextAlphabets = cipherTextAlphabets;
+		this.cipherTextAlphabets = cipherTextAlphabets.clone();
+
+		// compile the alphabets into lookup tables, so translating a character doesn't need to search any alphabet
+		char[] plainChars = plaintTextAlphabet.asCharArray();
+		this.plainIndex = new CharTable(plainChars);
+		this.encrypted = new char[cipherTextAlphabets.length][];
+		this.decrypted = new CharTable[cipherTextAlphabets.length];
+		for(int p = 0; p < cipherTextAlphabets.length; p++) {
+			char[] cipherChars = cipherTextAlphabets[p].asCharArray();
+			encrypted[p] = cipherChars;
+			decrypted[p] = new CharTable(cipherChars, plainChars);
+		}
+		this.tableauEncrypt = isDeclaredBy(PolyalphabeticCipherImpl.class, "translate");
+		this.tableauDecrypt = isDeclaredBy(PolyalphabeticCipherImpl.class, "reverseTranslate");
 	}
 
 	/**
@@ -53,15 +88,13 @@ public class PolyalphabeticCipherImpl extends SubstitutionCipherImpl implements
 	 */
 	@Override
 	public char translate(char chr, int i) {
-		// calculate the correct ciphertext alphabet
-		i %= cipherTextAlphabets.length;
 		// get the position of the plain text character that is about to be translated
-		int plainPos = plaintTextAlphabet.getIndex(chr);
-		if(i == -1) {
+		int plainPos = plainIndex.get(chr);
+		if(plainPos == CharTable.UNMAPPED) {
 			throw new InvalidCharacterException("The character '" + chr + "' is not part of the plain text alphabet!");
 		}
-		// translate the character into the appropriate cipher text alphabet
-		return cipherTextAlphabets[i].getChar(plainPos);
+		// translate the character with the correct ciphertext alphabet
+		return encrypted[i % encrypted.length][plainPos];
 	}
 
 	/**
@@ -75,14 +108,104 @@ public class PolyalphabeticCipherImpl extends SubstitutionCipherImpl implements
 	 */
 	@Override
 	public char reverseTranslate(char chr, int i) {
-		// calculate the correct ciphertext alphabet
-		i %= cipherTextAlphabets.length;
-		// get the position of the cipher text character that is about to be translated
-		int cipherPos = cipherTextAlphabets[i].getIndex(chr);
-		if(i == -1) {
+		// translate the character back with the table of the correct ciphertext alphabet
+		int ret = decrypted[i % decrypted.length].get(chr);
+		if(ret == CharTable.UNMAPPED) {
 			throw new InvalidCharacterException("The character '" + chr + "' is not part of the cipher text alphabet!");
 		}
-		// translate the character into the appropriate plain text alphabet
-		return plaintTextAlphabet.getChar(cipherPos);
+		return (char) ret;
+	}
+
+	/**
+	 * The tableau is never changed after the constructor, so several threads can translate with it at once
+	 *
+	 * @return {@link #DEFAULT_PARALLEL_THRESHOLD}
+	 */
+	@Override
+	protected int getParallelThreshold() {
+		return DEFAULT_PARALLEL_THRESHOLD;
+	}
+
+	/**
+	 * The cipher text alphabets are used one after another, so the period is their number
+	 *
+	 * @return the number of cipher text alphabets
+	 */
+	@Override
+	public int getPeriod() {
+		return cipherTextAlphabets.length;
+	}
+
+	/**
+	 * @return the plain text alphabet
+	 */
+	@Override
+	public Alphabet getSourceAlphabet() {
+		return plaintTextAlphabet;
+	}
+
+	/**
+	 * Encrypts len characters of src starting at srcOff with the tableau, counting the position in the period
+	 * along instead of calculating it for every character, unless a subclass overrides {@link #translate(char, int)}
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @return true if the block was encrypted
+	 */
+	@Override
+	protected boolean encryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(!tableauEncrypt) {
+			return false;
+		}
+		char[][] tableau = encrypted;
+		int p = startPos % tableau.length;
+		for(int i = 0; i < len; i++) {
+			int plainPos = plainIndex.get(src[srcOff + i]);
+			if(plainPos == CharTable.UNMAPPED) {
+				throw new InvalidCharacterException("The character '" + src[srcOff + i] + "' is not part of the plain text alphabet!");
+			}
+			dst[dstOff + i] = tableau[p][plainPos];
+			if(++p == tableau.length) {
+				p = 0;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decrypts len characters of src starting at srcOff with the inverse tables, counting the position in the period
+	 * along instead of calculating it for every character, unless a subclass overrides
+	 * {@link #reverseTranslate(char, int)}
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @return true if the block was decrypted
+	 */
+	@Override
+	protected boolean decryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(!tableauDecrypt) {
+			return false;
+		}
+		CharTable[] tables = decrypted;
+		int p = startPos % tables.length;
+		for(int i = 0; i < len; i++) {
+			int c = tables[p].get(src[srcOff + i]);
+			if(c == CharTable.UNMAPPED) {
+				throw new InvalidCharacterException("The character '" + src[srcOff + i] + "' is not part of the cipher text alphabet!");
+			}
+			dst[dstOff + i] = (char) c;
+			if(++p == tables.length) {
+				p = 0;
+			}
+		}
+		return true;
 	}
 }
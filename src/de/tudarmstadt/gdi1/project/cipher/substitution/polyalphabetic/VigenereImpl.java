@@ -1,8 +1,9 @@
 package de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
-import de.tudarmstadt.gdi1.project.utils.Utils;
-import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.utils.AlphabetRotations;
+import de.tudarmstadt.gdi1.project.utils.ShiftKernel;
 
 import java.util.ArrayList;
 
@@ -12,6 +13,21 @@ import java.util.ArrayList;
  */
 public class VigenereImpl extends PolyalphabeticCipherImpl implements Vigenere {
 
+	/**
+	 * true if the alphabet is contiguous, so the characters can simply be shifted by adding the key
+	 */
+	protected final boolean contiguous;
+
+	/**
+	 * the shift of every key character, used for encrypting
+	 */
+	protected final int[] shifts;
+
+	/**
+	 * the complement of every shift, used for decrypting
+	 */
+	protected final int[] inverseShifts;
+
 	/**
 	 * Construct a new Vigenere encryption
 	 *
@@ -19,19 +35,85 @@ public class VigenereImpl extends PolyalphabeticCipherImpl implements Vigenere {
 	 * @param alphabet Source alphabet
 	 */
 	public VigenereImpl(String key, Alphabet alphabet) {
-		// create the super class with the protected default constructor
-		super();
+		// the alphabets have to be known before the cipher compiles its tableau
+		super(alphabet, createAlphabets(key, alphabet));
+
+		// remember the shifts for the arithmetic kernel
+		this.contiguous = ShiftKernel.isContiguous(alphabet) && key.length() > 0;
+		this.shifts = new int[key.length()];
+		this.inverseShifts = new int[key.length()];
+		if(contiguous) {
+			for(int i = 0; i < key.length(); i++) {
+				shifts[i] = ShiftKernel.normalize(alphabet.getIndex(key.charAt(i)), alphabet.size());
+				inverseShifts[i] = ShiftKernel.normalize(-shifts[i], alphabet.size());
+			}
+		}
+	}
 
-		// fill the ciphertextarray by shifiting the source alphabet according to the position
-		// of the character in the key
+	/**
+	 * Computes the cipher text alphabets: the source alphabet shifted according to the position of every character of
+	 * the key
+	 *
+	 * @param key      Keyword for the encryption
+	 * @param alphabet Source alphabet
+	 * @return one alphabet per character of the key
+	 */
+	protected static Alphabet[] createAlphabets(String key, Alphabet alphabet) {
 		ArrayList<Alphabet> vigenereAlphabets = new ArrayList<Alphabet>();
-		Utils utils = new UtilsImpl();
+		// the shifted alphabets are shared with every other cipher over the same alphabet
+		AlphabetRotations rotations = AlphabetRotations.of(alphabet);
 		for(Character c : key.toCharArray()) {
-			vigenereAlphabets.add(utils.shiftAlphabet(alphabet, alphabet.getIndex(c)));
+			vigenereAlphabets.add(rotations.getShifted(alphabet.getIndex(c)));
 		}
+		return vigenereAlphabets.toArray(new Alphabet[vigenereAlphabets.size()]);
+	}
 
-		// assign the plain text alphabet and the ciphertextalphabets
-		this.plaintTextAlphabet = alphabet;
-		this.cipherTextAlphabets = vigenereAlphabets.toArray(new Alphabet[vigenereAlphabets.size()]);
+	/**
+	 * Encrypts by adding the key if the alphabet is contiguous, otherwise with the tableau.
+	 * Nothing of both if a subclass overrides {@link #translate(char, int)}.
+	 *
+	 * @param src      the plaintext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to encrypt
+	 * @param dst      the array the ciphertext is written to
+	 * @param dstOff   the position in dst the first encrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @return true if the block was translated
+	 */
+	@Override
+	protected boolean encryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		// the kernel replaces translate just like the tableau does
+		if(!contiguous || !tableauEncrypt) {
+			return super.encryptBlock(src, srcOff, len, dst, dstOff, startPos);
+		}
+		int invalid = ShiftKernel.shift(src, srcOff, len, dst, dstOff, plaintTextAlphabet.getChar(0), plaintTextAlphabet.size(), shifts, startPos);
+		if(invalid != ShiftKernel.OK) {
+			throw new InvalidCharacterException("The character '" + src[srcOff + invalid] + "' is not part of the plain text alphabet!");
+		}
+		return true;
+	}
+
+	/**
+	 * Decrypts by subtracting the key if the alphabet is contiguous, otherwise with the inverse tables.
+	 * Nothing of both if a subclass overrides {@link #reverseTranslate(char, int)}.
+	 *
+	 * @param src      the ciphertext
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters to decrypt
+	 * @param dst      the array the plaintext is written to
+	 * @param dstOff   the position in dst the first decrypted character is written to
+	 * @param startPos the position of the first character in the whole text
+	 * @return true if the block was translated
+	 */
+	@Override
+	protected boolean decryptBlock(char[] src, int srcOff, int len, char[] dst, int dstOff, int startPos) {
+		if(!contiguous || !tableauDecrypt) {
+			return super.decryptBlock(src, srcOff, len, dst, dstOff, startPos);
+		}
+		int invalid = ShiftKernel.shift(src, srcOff, len, dst, dstOff, plaintTextAlphabet.getChar(0), plaintTextAlphabet.size(), inverseShifts, startPos);
+		if(invalid != ShiftKernel.OK) {
+			throw new InvalidCharacterException("The character '" + src[srcOff + invalid] + "' is not part of the cipher text alphabet!");
+		}
+		return true;
 	}
 }
@@ -0,0 +1,27 @@
+package de.tudarmstadt.gdi1.project.exception;
+
+/**
+ * Gets thrown if a key space has too many keys to be numbered by a long, so it can't be enumerated
+ */
+public class KeySpaceTooLargeException extends RuntimeException {
+	/**
+	 * Constructs a new runtime exception with {@code null} as its
+	 * detail message.  The cause is not initialized, and may subsequently be
+	 * initialized by a call to {@link #initCause}.
+	 */
+	public KeySpaceTooLargeException() {
+		super();
+	}
+
+	/**
+	 * Constructs a new runtime exception with the specified detail message.
+	 * The cause is not initialized, and may subsequently be initialized by a
+	 * call to {@link #initCause}.
+	 *
+	 * @param message the detail message. The detail message is saved for
+	 *                later retrieval by the {@link #getMessage()} method.
+	 */
+	public KeySpaceTooLargeException(String message) {
+		super(message);
+	}
+}
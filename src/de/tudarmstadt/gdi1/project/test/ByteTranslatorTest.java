@@ -0,0 +1,121 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.PinBoardImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.ReverseRotorImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.Rotor;
+import de.tudarmstadt.gdi1.project.cipher.enigma.RotorImpl;
+import de.tudarmstadt.gdi1.project.cipher.io.ByteTranslator;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.KeywordMonoalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * tests for translating bytes directly
+ */
+public class ByteTranslatorTest {
+
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+	@Test
+	public void testArraysInParts() {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		String plain = getText();
+		byte[] bytes = plain.getBytes(LATIN1);
+
+		// translate in place, in two parts that don't line up with the key
+		ByteTranslator translator = ByteTranslator.encrypting(cipher);
+		translator.translate(bytes, 0, 11, bytes, 0);
+		translator.translate(bytes, 11, bytes.length - 11, bytes, 11);
+		Assert.assertEquals(cipher.encrypt(plain), new String(bytes, LATIN1));
+
+		ByteTranslator.decrypting(cipher).translate(bytes, 0, bytes.length, bytes, 0);
+		Assert.assertEquals(plain, new String(bytes, LATIN1));
+	}
+
+	@Test
+	public void testDirectBuffers() {
+		KeywordMonoalphabeticCipherImpl cipher = new KeywordMonoalphabeticCipherImpl("keyword", TemplateTestUtils.getDefaultAlphabet());
+		String plain = getText();
+		byte[] bytes = plain.getBytes(LATIN1);
+
+		ByteBuffer src = ByteBuffer.allocateDirect(bytes.length);
+		src.put(bytes).flip();
+		ByteBuffer dst = ByteBuffer.allocateDirect(bytes.length);
+		ByteTranslator.encrypting(cipher).translate(src, dst);
+
+		Assert.assertEquals(0, src.remaining());
+		dst.flip();
+		byte[] encrypted = new byte[dst.remaining()];
+		dst.get(encrypted);
+		Assert.assertEquals(cipher.encrypt(plain), new String(encrypted, LATIN1));
+	}
+
+	@Test
+	public void testBufferInPlace() {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		String plain = getText();
+		byte[] bytes = plain.getBytes(LATIN1);
+
+		for(ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(bytes.length), ByteBuffer.allocateDirect(bytes.length)}) {
+			buffer.put(bytes).flip();
+			// translate in two parts, the second one has to start at the right position of the key
+			ByteTranslator translator = ByteTranslator.encrypting(cipher);
+			buffer.limit(5);
+			translator.translate(buffer, buffer);
+			Assert.assertEquals(5, buffer.position());
+			buffer.limit(bytes.length);
+			translator.translate(buffer, buffer);
+			Assert.assertEquals(bytes.length, buffer.position());
+
+			buffer.flip();
+			byte[] encrypted = new byte[buffer.remaining()];
+			buffer.get(encrypted);
+			Assert.assertEquals(cipher.encrypt(plain), new String(encrypted, LATIN1));
+		}
+	}
+
+	@Test
+	public void testEnigmaBytes() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		String plain = getText();
+		byte[] bytes = plain.getBytes(LATIN1);
+
+		ByteTranslator translator = ByteTranslator.of(createEnigma(alphabet));
+		translator.translate(bytes, 0, 100, bytes, 0);
+		translator.translate(bytes, 100, bytes.length - 100, bytes, 100);
+		Assert.assertEquals(createEnigma(alphabet).encrypt(plain), new String(bytes, LATIN1));
+	}
+
+	@Test(expected = InvalidCharacterException.class)
+	public void testUnmappedByte() {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		byte[] bytes = "ab cd".getBytes(LATIN1);
+		ByteTranslator.encrypting(cipher).translate(bytes, 0, bytes.length, bytes, 0);
+	}
+
+	/**
+	 * the text used by the tests, only containing characters of the default alphabet
+	 */
+	private static String getText() {
+		return TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+	}
+
+	/**
+	 * creates an enigma with two rotors
+	 */
+	private static EnigmaImpl createEnigma(Alphabet alphabet) {
+		List<Rotor> rotors = new ArrayList<Rotor>();
+		rotors.add(new RotorImpl(alphabet, TemplateTestUtils.getMixedDefaultAlphabet(), 3));
+		rotors.add(new RotorImpl(alphabet, TemplateTestUtils.getReversedDefaultAlphabet(), 0));
+		return new EnigmaImpl(rotors, new PinBoardImpl(alphabet, alphabet), new ReverseRotorImpl(alphabet, TemplateTestUtils.getReversedDefaultAlphabet()));
+	}
+}
@@ -0,0 +1,78 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.CaesarImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput of the bulk encryption of the ciphers with calling translate for every character.
+ * This isn't a unit test, run it with {@code java de.tudarmstadt.gdi1.project.test.CipherBenchmark [characters]}.
+ */
+public class CipherBenchmark {
+
+	/**
+	 * how often every measurement is repeated, the first rounds warm up the JIT
+	 */
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) {
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 24;
+		Alphabet alphabet = new AlphabetImpl("abcdefghijklmnopqrstuvwxyz");
+
+		// random text over the alphabet
+		char[] text = new char[length];
+		Random random = new Random(42);
+		for(int i = 0; i < text.length; i++) {
+			text[i] = alphabet.getChar(random.nextInt(alphabet.size()));
+		}
+
+		run("caesar", new CaesarImpl(3, alphabet), text);
+		run("vigenere", new VigenereImpl("benchmark", alphabet), text);
+	}
+
+	/**
+	 * measures both ways of encrypting and prints the best result of each
+	 *
+	 * @param name   the name of the cipher
+	 * @param cipher the cipher
+	 * @param text   the plaintext
+	 */
+	private static void run(String name, SubstitutionCipherImpl cipher, char[] text) {
+		char[] out = new char[text.length];
+		long bestTranslate = Long.MAX_VALUE;
+		long bestBulk = Long.MAX_VALUE;
+		long bestParallel = Long.MAX_VALUE;
+		for(int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < text.length; i++) {
+				out[i] = cipher.translate(text[i], i);
+			}
+			bestTranslate = Math.min(bestTranslate, System.nanoTime() - start);
+
+			// bulk encryption on a single thread, in blocks that are too short to be split up
+			int block = SubstitutionCipherImpl.DEFAULT_PARALLEL_THRESHOLD - 1;
+			start = System.nanoTime();
+			for(int off = 0; off < text.length; off += block) {
+				cipher.encrypt(text, off, Math.min(block, text.length - off), out, off, off);
+			}
+			bestBulk = Math.min(bestBulk, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			cipher.encrypt(text, 0, text.length, out, 0, 0);
+			bestParallel = Math.min(bestParallel, System.nanoTime() - start);
+		}
+		System.out.printf("%-10s translate: %8.1f   bulk: %8.1f   parallel bulk: %8.1f (million characters per second)%n", name,
+				throughput(text.length, bestTranslate), throughput(text.length, bestBulk), throughput(text.length, bestParallel));
+	}
+
+	/**
+	 * @return million characters per second
+	 */
+	private static double throughput(int characters, long nanos) {
+		return characters * 1000.0 / nanos;
+	}
+}
@@ -0,0 +1,55 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.FactoryImpl;
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.utils.CipherCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * tests for caching ciphers in the factory
+ */
+public class CipherCacheTest {
+	@Test
+	public void testFactoryReusesCiphers() {
+		CipherCache cache = new CipherCache(10);
+		FactoryImpl factory = new FactoryImpl(cache);
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+
+		Assert.assertSame(factory.getVigenereCipherInstance("key", alphabet), factory.getVigenereCipherInstance("key", TemplateTestUtils.getDefaultAlphabet()));
+		Assert.assertSame(factory.getCaesarInstance(3, alphabet), factory.getCaesarInstance(3, alphabet));
+		Assert.assertNotSame(factory.getCaesarInstance(3, alphabet), factory.getCaesarInstance(4, alphabet));
+		// same key, but a different type of cipher
+		Assert.assertNotSame(factory.getKeywordMonoalphabeticCipherInstance("key", alphabet), factory.getVigenereCipherInstance("key", alphabet));
+
+		Assert.assertEquals(4, cache.size());
+		Assert.assertEquals(4, cache.getMisses());
+		Assert.assertEquals(4, cache.getHits());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		CipherCache cache = new CipherCache(2);
+		FactoryImpl factory = new FactoryImpl(cache);
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+
+		Object first = factory.getCaesarInstance(1, alphabet);
+		Object second = factory.getCaesarInstance(2, alphabet);
+		// use the first one again, so the second one is the oldest
+		Assert.assertSame(first, factory.getCaesarInstance(1, alphabet));
+		factory.getCaesarInstance(3, alphabet);
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertSame(first, factory.getCaesarInstance(1, alphabet));
+		Assert.assertNotSame(second, factory.getCaesarInstance(2, alphabet));
+	}
+
+	@Test
+	public void testNoCacheByDefault() {
+		FactoryImpl factory = new FactoryImpl();
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+
+		Assert.assertNull(factory.getCipherCache());
+		Assert.assertNotSame(factory.getCaesarInstance(3, alphabet), factory.getCaesarInstance(3, alphabet));
+	}
+}
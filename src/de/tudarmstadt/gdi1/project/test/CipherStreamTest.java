@@ -0,0 +1,107 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.PinBoardImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.ReverseRotorImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.Rotor;
+import de.tudarmstadt.gdi1.project.cipher.enigma.RotorImpl;
+import de.tudarmstadt.gdi1.project.cipher.io.CipherReader;
+import de.tudarmstadt.gdi1.project.cipher.io.CipherWriter;
+import de.tudarmstadt.gdi1.project.cipher.io.StreamTranslator;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * tests for the cipher readers and writers
+ */
+public class CipherStreamTest {
+	@Test
+	public void testWriterKeepsPositions() throws Exception {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		String plain = getText();
+
+		// write the text in uneven parts, so the key doesn't line up with the parts
+		StringWriter out = new StringWriter();
+		CipherWriter writer = new CipherWriter(out, StreamTranslator.encrypting(cipher));
+		writer.write(plain.substring(0, 7));
+		writer.write(plain.charAt(7));
+		writer.write(plain.substring(8).toCharArray());
+		writer.close();
+
+		Assert.assertEquals(cipher.encrypt(plain), out.toString());
+	}
+
+	@Test
+	public void testReaderDecrypts() throws Exception {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		String plain = getText();
+
+		Assert.assertEquals(plain, readAll(new CipherReader(new StringReader(cipher.encrypt(plain)), StreamTranslator.decrypting(cipher)), 13));
+	}
+
+	@Test
+	public void testReaderSkipKeepsPositions() throws Exception {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		String plain = getText();
+
+		Reader reader = new CipherReader(new StringReader(cipher.encrypt(plain)), StreamTranslator.decrypting(cipher));
+		Assert.assertEquals(0, reader.skip(0));
+		Assert.assertEquals(5, reader.skip(5));
+		Assert.assertEquals(plain.substring(5), readAll(reader, 13));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReaderSkipNegative() throws Exception {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+		new CipherReader(new StringReader("abc"), StreamTranslator.decrypting(cipher)).skip(-1);
+	}
+
+	@Test
+	public void testEnigmaStream() throws Exception {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		String plain = getText();
+
+		String expected = createEnigma(alphabet).encrypt(plain);
+		Reader reader = new CipherReader(new StringReader(plain), StreamTranslator.of(createEnigma(alphabet)));
+		Assert.assertEquals(expected, readAll(reader, 17));
+	}
+
+	/**
+	 * the text used by the tests, only containing characters of the default alphabet
+	 */
+	private static String getText() {
+		return TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+	}
+
+	/**
+	 * creates an enigma with two rotors, so the second rotor turns while the text is read
+	 */
+	private static EnigmaImpl createEnigma(Alphabet alphabet) {
+		List<Rotor> rotors = new ArrayList<Rotor>();
+		rotors.add(new RotorImpl(alphabet, TemplateTestUtils.getMixedDefaultAlphabet(), 3));
+		rotors.add(new RotorImpl(alphabet, TemplateTestUtils.getReversedDefaultAlphabet(), 0));
+		return new EnigmaImpl(rotors, new PinBoardImpl(alphabet, alphabet), new ReverseRotorImpl(alphabet, TemplateTestUtils.getReversedDefaultAlphabet()));
+	}
+
+	/**
+	 * reads everything from the reader using a small buffer
+	 */
+	private static String readAll(Reader reader, int bufferSize) throws Exception {
+		StringBuilder ret = new StringBuilder();
+		char[] buffer = new char[bufferSize];
+		int read;
+		while((read = reader.read(buffer)) != -1) {
+			ret.append(buffer, 0, read);
+		}
+		reader.close();
+		return ret.toString();
+	}
+}
@@ -0,0 +1,68 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.substitution.ComposedCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.PeriodicSubstitutionCipher;
+import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipher;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.CaesarImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.KeywordMonoalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.MonoalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.PolyalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * tests for composing ciphers
+ */
+public class ComposedCipherImplTest {
+	@Test
+	public void testMonoChainFusesIntoMono() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		SubstitutionCipher first = new KeywordMonoalphabeticCipherImpl("keyword", alphabet);
+		SubstitutionCipher second = new CaesarImpl(5, alphabet);
+		SubstitutionCipher composed = ComposedCipherImpl.compose(first, second);
+
+		Assert.assertTrue(composed instanceof MonoalphabeticCipherImpl);
+		String plain = getText();
+		Assert.assertEquals(second.encrypt(first.encrypt(plain)), composed.encrypt(plain));
+		Assert.assertEquals(plain, composed.decrypt(composed.encrypt(plain)));
+	}
+
+	@Test
+	public void testPolyChainUsesLcmPeriod() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		SubstitutionCipher first = new KeywordMonoalphabeticCipherImpl("keyword", alphabet);
+		SubstitutionCipher second = new VigenereImpl("abcd", alphabet);
+		SubstitutionCipher third = new VigenereImpl("xyzzyx", alphabet);
+		SubstitutionCipher composed = ComposedCipherImpl.compose(first, second, third);
+
+		Assert.assertTrue(composed instanceof PolyalphabeticCipherImpl);
+		Assert.assertEquals(12, ((PeriodicSubstitutionCipher) composed).getPeriod());
+		String plain = getText();
+		Assert.assertEquals(third.encrypt(second.encrypt(first.encrypt(plain))), composed.encrypt(plain));
+		Assert.assertEquals(plain, composed.decrypt(composed.encrypt(plain)));
+	}
+
+	@Test
+	public void testLongPeriodFallsBackToChain() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		SubstitutionCipher first = new VigenereImpl("abcdefghijklm", alphabet);
+		SubstitutionCipher second = new VigenereImpl("nopqrstuvwxyz", alphabet);
+
+		// the fused period would be 13, more than allowed
+		SubstitutionCipher composed = ComposedCipherImpl.compose(10, first, second);
+
+		Assert.assertTrue(composed instanceof ComposedCipherImpl);
+		String plain = getText();
+		Assert.assertEquals(second.encrypt(first.encrypt(plain)), composed.encrypt(plain));
+		Assert.assertEquals(plain, composed.decrypt(composed.encrypt(plain)));
+	}
+
+	/**
+	 * the text used by the tests, only containing characters of the default alphabet
+	 */
+	private static String getText() {
+		return TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+	}
+}
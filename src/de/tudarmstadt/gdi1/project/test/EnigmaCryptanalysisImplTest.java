@@ -0,0 +1,305 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.FactoryImpl;
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.DistributionImpl;
+import de.tudarmstadt.gdi1.project.analysis.enigma.BombeMenu;
+import de.tudarmstadt.gdi1.project.analysis.enigma.BombeStop;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaCryptanalysis;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaCryptanalysisImpl;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaKeySpace;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaKeySpaceSearch;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaPinBoardSolver;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaSetting;
+import de.tudarmstadt.gdi1.project.analysis.enigma.NgramScore;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * tests for the enigma cryptanalysis
+ */
+public class EnigmaCryptanalysisImplTest {
+
+	/**
+	 * the available rotors
+	 */
+	private static final String[] ROTORS = {"ekmflgdqvzntowyhxuspaibrcj", "ajdksiruxblhwtmcqgznpyfvoe", "bdfhjlcprtxvznyeiwgakmusqo", "esovpzjayquirhxlnftgkdcmwb"};
+
+	@Test
+	public void testRanks() {
+		EnigmaKeySpace keySpace = createKeySpace(4, 3);
+		Assert.assertEquals(4 * 3 * 2 * 26 * 26 * 26, keySpace.size());
+
+		Random random = new Random(42);
+		for(int i = 0; i < 1000; i++) {
+			long rank = (long) (random.nextDouble() * keySpace.size());
+			EnigmaSetting setting = keySpace.settingAt(rank);
+			Assert.assertEquals(rank, keySpace.rankOf(setting));
+		}
+		Assert.assertEquals(keySpace.size() - 1, keySpace.rankOf(keySpace.settingAt(keySpace.size() - 1)));
+	}
+
+	@Test
+	public void testDecryptMatchesEnigma() {
+		EnigmaKeySpace keySpace = createKeySpace(4, 3);
+		String plain = getText();
+		int[] text = keySpace.toIndices(plain);
+		int[] decrypted = new int[text.length];
+		Random random = new Random(7);
+		for(int i = 0; i < 20; i++) {
+			EnigmaSetting setting = keySpace.settingAt((long) (random.nextDouble() * keySpace.size()));
+			String expected = keySpace.createEnigma(setting).encrypt(plain);
+			keySpace.decrypt(setting.getReflector(), setting.getRotorOrder(), setting.getStartPositions(), null, text, text.length, decrypted, new int[3]);
+			Assert.assertArrayEquals(keySpace.toIndices(expected), decrypted);
+		}
+	}
+
+	@Test
+	public void testNgramAttack() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		EnigmaSetting secret = new EnigmaSetting(new int[]{2, 0, 1}, new int[]{3, 25, 7}, 0);
+		String ciphertext = keySpace.createEnigma(secret).encrypt(getText().substring(0, 250));
+
+		EnigmaCryptanalysis analysis = new FactoryImpl().getEnigmaCryptanalysisInstance();
+		List<EnigmaSetting> result = analysis.knownCiphertextAttack(ciphertext, keySpace, new DistributionImpl(TemplateTestUtils.getDefaultAlphabet(), getText(), 3), 5);
+		Assert.assertEquals(5, result.size());
+		Assert.assertEquals(secret, result.get(0));
+		// best first
+		for(int i = 1; i < result.size(); i++) {
+			Assert.assertTrue(result.get(i - 1).getScore() >= result.get(i).getScore());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNgramAttackWithOtherAlphabet() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		String ciphertext = keySpace.createEnigma(new EnigmaSetting(new int[]{2, 0, 1}, new int[]{3, 25, 7}, 0)).encrypt(getText().substring(0, 250));
+		new FactoryImpl().getEnigmaCryptanalysisInstance().knownCiphertextAttack(ciphertext, keySpace, createShiftedDistribution(), 5);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPinBoardAttackWithOtherAlphabet() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		EnigmaSetting setting = new EnigmaSetting(new int[]{0, 2, 1}, new int[]{8, 2, 19}, 0);
+		String ciphertext = keySpace.createEnigma(setting).encrypt(getText().substring(0, 250));
+		new FactoryImpl().getEnigmaCryptanalysisInstance().pinBoardAttack(ciphertext, keySpace, setting, createShiftedDistribution());
+	}
+
+	@Test
+	public void testIndexOfCoincidenceAttack() {
+		EnigmaKeySpace keySpace = createKeySpace(4, 2);
+		EnigmaSetting secret = new EnigmaSetting(new int[]{3, 1}, new int[]{11, 4}, 0);
+		String ciphertext = keySpace.createEnigma(secret).encrypt(getText());
+
+		List<EnigmaSetting> result = new FactoryImpl().getEnigmaCryptanalysisInstance().knownCiphertextAttack(ciphertext, keySpace, 3);
+		Assert.assertTrue(result.contains(secret));
+	}
+
+	@Test
+	public void testBombe() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		EnigmaSetting secret = new EnigmaSetting(new int[]{1, 2, 0}, new int[]{20, 24, 5}, 0);
+		Alphabet pinBoard = createPinBoard("aq", "er", "mt", "ls");
+		String plain = getText().substring(100, 180);
+		String ciphertext = keySpace.createEnigma(secret, pinBoard).encrypt(plain);
+		String crib = plain.substring(20, 50);
+
+		List<BombeStop> stops = new FactoryImpl().getEnigmaCryptanalysisInstance().knownPlaintextAttack(ciphertext, crib, 20, keySpace);
+		// the bombe only stops a few times out of all settings
+		Assert.assertTrue(stops.size() < 20);
+		BombeStop found = null;
+		for(BombeStop stop : stops) {
+			if(stop.getSetting().equals(secret)) {
+				found = stop;
+			}
+		}
+		Assert.assertNotNull(found);
+		Assert.assertEquals(20, found.getOffset());
+		// every deduced connection is a real one
+		for(Map.Entry<Character, Character> plug : found.getPlugs().entrySet()) {
+			Alphabet alphabet = keySpace.getAlphabet();
+			Assert.assertEquals(pinBoard.getChar(alphabet.getIndex(plug.getKey())), plug.getValue().charValue());
+		}
+	}
+
+	@Test
+	public void testBombeWithoutOffset() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 2);
+		EnigmaSetting secret = new EnigmaSetting(new int[]{2, 0}, new int[]{13, 1}, 0);
+		Alphabet pinBoard = createPinBoard("aq", "er", "mt", "ls");
+		String plain = getText().substring(300, 360);
+		String ciphertext = keySpace.createEnigma(secret, pinBoard).encrypt(plain);
+
+		List<BombeStop> stops = new FactoryImpl().getEnigmaCryptanalysisInstance().knownPlaintextAttack(ciphertext, plain.substring(30, 55), keySpace);
+		boolean found = false;
+		for(BombeStop stop : stops) {
+			found |= stop.getSetting().equals(secret) && stop.getOffset() == 30;
+			// the deduced pinboard decrypts the crib
+			String decrypted = keySpace.createEnigma(stop.getSetting(), stop.getPinBoard(keySpace.getAlphabet())).decrypt(ciphertext);
+			if(stop.getSetting().equals(secret)) {
+				Assert.assertEquals(plain.substring(30, 55), decrypted.substring(30, 55));
+			}
+		}
+		Assert.assertTrue(found);
+	}
+
+	@Test
+	public void testBombeWithSeveralComponents() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		Alphabet pinBoard = createPinBoard("aq", "er", "mt", "ls", "bx", "cn", "dy");
+		// pairs of the rank of the setting and the position of the text, with a short crib whose menu falls apart
+		long[][] cases = {{101628, 282}, {96382, 59}, {30659, 463}};
+		for(long[] c : cases) {
+			EnigmaSetting secret = keySpace.settingAt(c[0]);
+			String plain = getText().substring((int) c[1], (int) c[1] + 40);
+			String ciphertext = keySpace.createEnigma(secret, pinBoard).encrypt(plain);
+			String crib = plain.substring(10, 22);
+			BombeMenu menu = new BombeMenu(keySpace.toIndices(ciphertext), keySpace.toIndices(crib), 10, keySpace.getAlphabet().size());
+			Assert.assertTrue(menu.getTestLetters().length > 1);
+
+			// the secret setting stops and every connection it reports is a real one
+			BombeStop found = null;
+			for(BombeStop stop : new FactoryImpl().getEnigmaCryptanalysisInstance().knownPlaintextAttack(ciphertext, crib, 10, keySpace)) {
+				if(stop.getSetting().equals(secret)) {
+					found = stop;
+				}
+			}
+			Assert.assertNotNull(found);
+			for(Map.Entry<Character, Character> plug : found.getPlugs().entrySet()) {
+				Alphabet alphabet = keySpace.getAlphabet();
+				Assert.assertEquals(pinBoard.getChar(alphabet.getIndex(plug.getKey())), plug.getValue().charValue());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBombeWithEmptyCrib() {
+		EnigmaKeySpace keySpace = createKeySpace(2, 2);
+		String ciphertext = keySpace.createEnigma(new EnigmaSetting(new int[]{1, 0}, new int[]{3, 7}, 0)).encrypt(getText().substring(0, 20));
+		new FactoryImpl().getEnigmaCryptanalysisInstance().knownPlaintextAttack(ciphertext, "", keySpace);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBombeWithShortCrib() {
+		EnigmaKeySpace keySpace = createKeySpace(2, 2);
+		String plain = getText().substring(0, 20);
+		String ciphertext = keySpace.createEnigma(new EnigmaSetting(new int[]{1, 0}, new int[]{3, 7}, 0)).encrypt(plain);
+		new FactoryImpl().getEnigmaCryptanalysisInstance().knownPlaintextAttack(ciphertext, plain.substring(5, 5 + EnigmaCryptanalysisImpl.MIN_CRIB_LENGTH - 1), 5, keySpace);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testKeySpaceSearchWithoutResults() {
+		EnigmaKeySpace keySpace = createKeySpace(2, 2);
+		NgramScore score = new NgramScore(new DistributionImpl(TemplateTestUtils.getDefaultAlphabet(), getText(), 3));
+		new EnigmaKeySpaceSearch(keySpace, 0, keySpace.size(), keySpace.toIndices(getText().substring(0, 50)), score, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNgramScoreWithTooManyIndices() {
+		// 216^4 doesn't fit into an int any more
+		new NgramScore(new DistributionImpl(createLargeAlphabet(216), "", 3), 3);
+	}
+
+	@Test
+	public void testNgramScoreShortensTooLongNgrams() {
+		Alphabet alphabet = createLargeAlphabet(216);
+		String text = new String(alphabet.asCharArray());
+		Assert.assertEquals(2, new NgramScore(new DistributionImpl(alphabet, text + text, 3)).getLength());
+	}
+
+	@Test
+	public void testPinBoardAttack() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		EnigmaSetting setting = new EnigmaSetting(new int[]{0, 2, 1}, new int[]{8, 2, 19}, 0);
+		Alphabet pinBoard = createPinBoard("aq", "er", "mt", "ls", "bx");
+		String plain = getText();
+		String ciphertext = keySpace.createEnigma(setting, pinBoard).encrypt(plain);
+
+		// the statistics are learned from another text than the plaintext
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		DistributionImpl distribution = new DistributionImpl(alphabet, alphabet.normalize(TemplateTestUtils.ALICE), 3);
+		Alphabet found = new FactoryImpl().getEnigmaCryptanalysisInstance().pinBoardAttack(ciphertext, keySpace, setting, distribution);
+		Assert.assertEquals(pinBoard, found);
+	}
+
+	@Test
+	public void testPinBoardSolverMatchesEnigma() {
+		EnigmaKeySpace keySpace = createKeySpace(3, 3);
+		EnigmaSetting setting = new EnigmaSetting(new int[]{1, 0, 2}, new int[]{0, 5, 9}, 0);
+		String plain = getText();
+		NgramScore score = new NgramScore(new DistributionImpl(TemplateTestUtils.getDefaultAlphabet(), plain, 3));
+		String ciphertext = keySpace.createEnigma(setting, createPinBoard("cd", "kz")).encrypt(plain);
+		EnigmaPinBoardSolver solver = new EnigmaPinBoardSolver(keySpace, setting, ciphertext, score);
+
+		// the precomputed rotor paths have to decrypt like the machine
+		int[] board = solver.climb(solver.identity(), 10);
+		String decrypted = keySpace.createEnigma(setting, solver.toAlphabet(board)).decrypt(ciphertext);
+		int[] indices = keySpace.toIndices(decrypted);
+		Assert.assertEquals(score.score(indices, indices.length), solver.score(board), 1e-6);
+	}
+
+	/**
+	 * the text used by the tests, only containing characters of the default alphabet
+	 */
+	private static String getText() {
+		return TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+	}
+
+	/**
+	 * creates a distribution of the test text over the default alphabet shifted by one. It has the same characters in
+	 * another order, so it would number the n-grams differently than the key space.
+	 */
+	private static DistributionImpl createShiftedDistribution() {
+		Alphabet shifted = new UtilsImpl().shiftAlphabet(TemplateTestUtils.getDefaultAlphabet(), 1);
+		return new DistributionImpl(shifted, getText(), 3);
+	}
+
+	/**
+	 * creates an alphabet of consecutive characters
+	 *
+	 * @param size the number of characters
+	 */
+	static Alphabet createLargeAlphabet(int size) {
+		char[] chars = new char[size];
+		for(int i = 0; i < size; i++) {
+			chars[i] = (char) (0x100 + i);
+		}
+		return TemplateTestUtils.getAlphabetFrom(chars);
+	}
+
+	/**
+	 * creates the output alphabet of a pinboard over the default alphabet
+	 *
+	 * @param pairs the connected characters, two in every string
+	 */
+	static Alphabet createPinBoard(String... pairs) {
+		char[] ret = TemplateTestUtils.getDefaultAlphabet().asCharArray();
+		for(String pair : pairs) {
+			ret[pair.charAt(0) - 'a'] = pair.charAt(1);
+			ret[pair.charAt(1) - 'a'] = pair.charAt(0);
+		}
+		return TemplateTestUtils.getAlphabetFrom(ret);
+	}
+
+	/**
+	 * creates a key space over the default alphabet with the reversed alphabet as reverse rotor
+	 *
+	 * @param available  the number of available rotors
+	 * @param rotorCount the number of rotors in the machine
+	 */
+	static EnigmaKeySpace createKeySpace(int available, int rotorCount) {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		List<Alphabet> rotors = new ArrayList<Alphabet>();
+		for(int i = 0; i < available; i++) {
+			rotors.add(TemplateTestUtils.getAlphabetFrom(ROTORS[i].toCharArray()));
+		}
+		return new EnigmaKeySpace(alphabet, rotors, new UtilsImpl().reverseAlphabet(alphabet), rotorCount);
+	}
+}
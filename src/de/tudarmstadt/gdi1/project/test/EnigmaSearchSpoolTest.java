@@ -0,0 +1,205 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.FactoryImpl;
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.DistributionImpl;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaKeySpace;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaSearchSpool;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaSearchWorker;
+import de.tudarmstadt.gdi1.project.analysis.enigma.EnigmaSetting;
+import de.tudarmstadt.gdi1.project.analysis.enigma.NgramScore;
+import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * tests for the enigma key space with several reverse rotors and the search spread over a spool directory
+ */
+public class EnigmaSearchSpoolTest {
+
+	/**
+	 * the number of shards the tests cut the key space into
+	 */
+	private static final int SHARDS = 8;
+
+	/**
+	 * the directory of the spool
+	 */
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("enigma-spool").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		delete(directory);
+	}
+
+	@Test
+	public void testReflectorRanks() {
+		EnigmaKeySpace keySpace = createKeySpace();
+		Assert.assertEquals(2 * 3 * 2 * 26 * 26, keySpace.size());
+		for(long rank = 0; rank < keySpace.size(); rank += 97) {
+			Assert.assertEquals(rank, keySpace.rankOf(keySpace.settingAt(rank)));
+		}
+		// the reverse rotor is the most significant part of the rank
+		Assert.assertEquals(0, keySpace.settingAt(keySpace.size() / 2 - 1).getReflector());
+		Assert.assertEquals(1, keySpace.settingAt(keySpace.size() / 2).getReflector());
+
+		// the machine of a setting uses its reverse rotor
+		EnigmaSetting setting = keySpace.settingAt(keySpace.size() - 5);
+		String plain = getText().substring(0, 100);
+		int[] text = keySpace.toIndices(plain);
+		int[] decrypted = new int[text.length];
+		keySpace.decrypt(setting.getReflector(), setting.getRotorOrder(), setting.getStartPositions(), null, text, text.length, decrypted, new int[2]);
+		Assert.assertArrayEquals(keySpace.toIndices(keySpace.createEnigma(setting).encrypt(plain)), decrypted);
+	}
+
+	@Test
+	public void testShardsCoverKeySpace() {
+		EnigmaKeySpace keySpace = createKeySpace();
+		long next = 0;
+		for(int i = 0; i < 7; i++) {
+			EnigmaKeySpace.Slice shard = keySpace.shard(i, 7);
+			Assert.assertEquals(next, shard.getFrom());
+			long rank = shard.getFrom();
+			for(EnigmaSetting setting : shard) {
+				Assert.assertEquals(rank++, keySpace.rankOf(setting));
+			}
+			Assert.assertEquals(shard.getTo(), rank);
+			next = shard.getTo();
+		}
+		Assert.assertEquals(keySpace.size(), next);
+
+		Iterator<EnigmaSetting> empty = keySpace.slice(3, 3).iterator();
+		Assert.assertFalse(empty.hasNext());
+	}
+
+	@Test
+	public void testWorkersFindSetting() throws IOException, InterruptedException {
+		EnigmaKeySpace keySpace = createKeySpace();
+		EnigmaSetting secret = keySpace.settingAt(keySpace.size() - 1234);
+		String ciphertext = keySpace.createEnigma(secret).encrypt(getText().substring(0, 250));
+		final EnigmaSearchSpool spool = EnigmaSearchSpool.create(directory, keySpace, ciphertext, getText(), 3, SHARDS);
+
+		// two workers in threads of this process share the shards
+		final int[] searched = new int[2];
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int i = 0; i < searched.length; i++) {
+			final int worker = i;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						searched[worker] = new EnigmaSearchWorker(EnigmaSearchSpool.open(spool.getDirectory())).work();
+					} catch(IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+		}
+		for(Thread thread : threads) {
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(SHARDS, searched[0] + searched[1]);
+		Assert.assertTrue(spool.isFinished());
+
+		// the merged shards give the same result as one search over the whole key space
+		List<EnigmaSetting> results = spool.getResults();
+		Assert.assertEquals(secret, results.get(0));
+		NgramScore score = new NgramScore(new DistributionImpl(keySpace.getAlphabet(), getText(), NgramScore.MAX_LENGTH));
+		List<EnigmaSetting> expected = new FactoryImpl().getEnigmaCryptanalysisInstance().knownCiphertextAttack(ciphertext, keySpace, score, 3);
+		Assert.assertEquals(expected, results);
+		for(int i = 0; i < results.size(); i++) {
+			Assert.assertEquals(expected.get(i).getScore(), results.get(i).getScore(), 0);
+		}
+	}
+
+	@Test
+	public void testRestart() throws IOException {
+		EnigmaKeySpace keySpace = createKeySpace();
+		EnigmaSetting secret = keySpace.settingAt(77);
+		String ciphertext = keySpace.createEnigma(secret).encrypt(getText().substring(0, 250));
+		EnigmaSearchSpool spool = EnigmaSearchSpool.create(directory, keySpace, ciphertext, null, 1, SHARDS);
+
+		// one shard is finished, then a worker dies while it searches another one
+		EnigmaSearchSpool.Shard shard = spool.claim();
+		shard.complete(new ArrayList<EnigmaSetting>());
+		File todo = new File(directory, "todo");
+		String name = todo.list()[0];
+		Assert.assertTrue(new File(todo, name).renameTo(new File(new File(directory, "running"), name)));
+		Assert.assertEquals(1, spool.getDoneCount());
+
+		// the restarted search keeps the finished shard and hands out the shard of the dead worker again
+		spool = EnigmaSearchSpool.create(directory, keySpace, ciphertext, null, 1, SHARDS);
+		Assert.assertEquals(1, spool.recover());
+		Assert.assertEquals(0, spool.recover());
+		Assert.assertEquals(SHARDS - 1, new EnigmaSearchWorker(spool).work());
+		Assert.assertTrue(spool.isFinished());
+		Assert.assertEquals(0, new File(directory, "running").list().length);
+	}
+
+	@Test
+	public void testWorkerProcess() throws IOException, InterruptedException {
+		EnigmaKeySpace keySpace = createKeySpace();
+		EnigmaSetting secret = keySpace.settingAt(4321);
+		String ciphertext = keySpace.createEnigma(secret).encrypt(getText().substring(0, 250));
+		EnigmaSearchSpool spool = EnigmaSearchSpool.create(directory, keySpace, ciphertext, getText(), 1, SHARDS);
+		List<EnigmaSetting> results = spool.search(1);
+		Assert.assertEquals(secret, results.get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentSearch() throws IOException {
+		EnigmaKeySpace keySpace = createKeySpace();
+		EnigmaSearchSpool.create(directory, keySpace, "abc", null, 1, SHARDS);
+		EnigmaSearchSpool.create(directory, keySpace, "abd", null, 1, SHARDS);
+	}
+
+	/**
+	 * the text used by the tests, only containing characters of the default alphabet
+	 */
+	private static String getText() {
+		return TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+	}
+
+	/**
+	 * creates a key space over the default alphabet with two of three rotors and two reverse rotors, the reversed
+	 * alphabet and the alphabet shifted by half its size
+	 */
+	private static EnigmaKeySpace createKeySpace() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		EnigmaKeySpace rotors = EnigmaCryptanalysisImplTest.createKeySpace(3, 2);
+		List<Alphabet> reflectors = new ArrayList<Alphabet>();
+		reflectors.add(new UtilsImpl().reverseAlphabet(alphabet));
+		reflectors.add(new UtilsImpl().shiftAlphabet(alphabet, alphabet.size() / 2));
+		return new EnigmaKeySpace(alphabet, rotors.getRotorAlphabets(), reflectors, 2);
+	}
+
+	/**
+	 * deletes a file or a directory with everything in it
+	 */
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null) {
+			for(File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,390 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.EnigmaSession;
+import de.tudarmstadt.gdi1.project.cipher.enigma.PinBoardImpl;
+import de.tudarmstadt.gdi1.project.cipher.enigma.ReverseRotorImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import de.tudarmstadt.gdi1.project.cipher.enigma.Rotor;
+import de.tudarmstadt.gdi1.project.cipher.enigma.RotorImpl;
+import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * tests for enigma sessions
+ */
+public class EnigmaSessionTest {
+
+	/**
+	 * the alphabets of the rotors, fixed so the tests are repeatable
+	 */
+	private static final String[] ROTORS = {"ekmflgdqvzntowyhxuspaibrcj", "ajdksiruxblhwtmcqgznpyfvoe", "bdfhjlcprtxvznyeiwgakmusqo"};
+
+	/**
+	 * the start positions of the rotors
+	 */
+	private static final int[] STARTS = {3, 25, 7};
+
+	@Test
+	public void testStatelessMatchesTurningRotors() {
+		String plain = getText();
+		// foreign rotors can't be used without turning them, so that machine takes the old way
+		String expected = createEnigma(true).encrypt(plain);
+		Assert.assertEquals(expected, createEnigma(false).encrypt(plain));
+	}
+
+	@Test
+	public void testEnigmaIsReciprocal() {
+		EnigmaImpl enigma = createEnigma(false);
+		String plain = getText();
+		String encrypted = enigma.encrypt(plain);
+
+		Assert.assertFalse(plain.equals(encrypted));
+		Assert.assertEquals(plain, enigma.decrypt(encrypted));
+	}
+
+	@Test
+	public void testRotorsAreChained() {
+		// the first character goes through the pinboard, every rotor in turn, the reverse rotor and back
+		for(boolean foreign : new boolean[]{false, true}) {
+			EnigmaImpl enigma = createEnigma(foreign);
+			Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+			for(char c : alphabet.asCharArray()) {
+				char expected = enigma.getPinBoard().translate(c);
+				for(Rotor rotor : enigma.getRotors()) {
+					expected = rotor.translate(expected, true);
+				}
+				expected = enigma.getReverseRotor().translate(expected);
+				for(int j = enigma.getRotors().size() - 1; j >= 0; j--) {
+					expected = enigma.getRotors().get(j).translate(expected, false);
+				}
+				expected = enigma.getPinBoard().translate(expected);
+
+				Assert.assertEquals(String.valueOf(expected), createEnigma(foreign).encrypt(String.valueOf(c)));
+			}
+
+			// so the machine is its own inverse, also with rotors that have to be turned
+			String plain = getText();
+			Assert.assertEquals(plain, enigma.decrypt(enigma.encrypt(plain)));
+		}
+	}
+
+	@Test
+	public void testSessionContinues() {
+		String plain = getText();
+		for(boolean foreign : new boolean[]{false, true}) {
+			EnigmaImpl enigma = createEnigma(foreign);
+			EnigmaSession session = enigma.newSession();
+			// another session in between must not disturb the first one
+			String first = session.encrypt(plain.substring(0, 100));
+			enigma.encrypt("interruption");
+			String second = session.encrypt(plain.substring(100));
+
+			Assert.assertEquals(enigma.encrypt(plain), first + second);
+			Assert.assertEquals(plain.length(), session.getCount());
+		}
+	}
+
+	@Test
+	public void testMachinesShareForeignRotors() {
+		// two machines with the same foreign rotors, the rotors don't belong to either of them
+		EnigmaImpl first = createEnigma(true);
+		EnigmaImpl second = new EnigmaImpl(first.getRotors(), first.getPinBoard(), first.getReverseRotor());
+		String plain = "helloworldhelloworld";
+		String expected = createEnigma(false).encrypt(plain);
+
+		EnigmaSession session = first.newSession();
+		Assert.assertEquals(expected.substring(0, 7), session.encrypt(plain.substring(0, 7)));
+		// every call leaves the rotors in their starting position for the other machine
+		Assert.assertEquals(expected, second.encrypt(plain));
+		Assert.assertEquals(expected.substring(7), session.encrypt(plain.substring(7)));
+		Assert.assertEquals(expected, second.encrypt(plain));
+	}
+
+	@Test
+	public void testConcurrentSessions() throws Exception {
+		final EnigmaImpl enigma = createEnigma(false);
+		final String plain = getText();
+		String expected = enigma.encrypt(plain);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for(int i = 0; i < 16; i++) {
+				results.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() {
+						return enigma.encrypt(plain);
+					}
+				}));
+			}
+			for(Future<String> result : results) {
+				Assert.assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testRotorTranslatesAtAnyPosition() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		RotorImpl turning = new RotorImpl(alphabet, TemplateTestUtils.getAlphabetFrom(ROTORS[0].toCharArray()), 0);
+		RotorImpl fixed = new RotorImpl(alphabet, TemplateTestUtils.getAlphabetFrom(ROTORS[0].toCharArray()), 0);
+		for(int position = 0; position < alphabet.size(); position++) {
+			for(char c : alphabet.asCharArray()) {
+				Assert.assertEquals(turning.translate(c, true), fixed.translate(c, true, position));
+				Assert.assertEquals(turning.translate(c, false), fixed.translate(c, false, position));
+			}
+			// only the full turn brings the rotor back to its start
+			Assert.assertEquals(position == alphabet.size() - 1, turning.rotate());
+		}
+	}
+
+	@Test
+	public void testRotorResetOutsideOfAlphabet() {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		Alphabet out = TemplateTestUtils.getAlphabetFrom(ROTORS[1].toCharArray());
+		// a start far beyond the size is used modulo the size and doesn't have to be turned to
+		RotorImpl rotor = new RotorImpl(alphabet, out, Integer.MAX_VALUE);
+		RotorImpl expected = new RotorImpl(alphabet, out, Integer.MAX_VALUE % alphabet.size());
+		rotor.rotate();
+		rotor.reset();
+		Assert.assertEquals(expected.translate('a', true), rotor.translate('a', true));
+		Assert.assertEquals(Integer.MAX_VALUE % alphabet.size(), rotor.getStartOffset());
+	}
+
+	@Test
+	public void testSeek() {
+		// the text is long enough for the second rotor to carry into the third
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < 2; i++) {
+			builder.append(getText());
+		}
+		String plain = builder.toString();
+		int[][] starts = {STARTS, {0, 0, 0}, {3, 40, 7}, {-2, 25, 7}};
+		for(int[] start : starts) {
+			for(boolean foreign : new boolean[]{false, true}) {
+				EnigmaImpl enigma = createEnigma(foreign, start);
+				String expected = enigma.encrypt(plain);
+				for(int position : new int[]{0, 1, 25, 26, 675, 676, 677, 1000, plain.length() - 1}) {
+					EnigmaSession session = enigma.newSession(position);
+					Assert.assertEquals(expected.substring(position), session.encrypt(plain.substring(position)));
+					// going back works as well
+					session.reset();
+					Assert.assertEquals(expected.substring(0, 10), session.encrypt(plain.substring(0, 10)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParallelMatchesSequential() {
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < 40; i++) {
+			builder.append(getText());
+		}
+		String plain = builder.toString();
+		EnigmaImpl sequential = createEnigma(false);
+		String expected = sequential.encrypt(plain);
+
+		// the same machine, but it already splits texts of 1000 characters
+		EnigmaImpl enigma = new EnigmaImpl(sequential.getRotors(), sequential.getPinBoard(), sequential.getReverseRotor()) {
+			@Override
+			protected int getParallelThreshold() {
+				return 1000;
+			}
+		};
+		Assert.assertEquals(expected, enigma.encrypt(plain));
+		Assert.assertEquals(plain, enigma.decrypt(expected));
+
+		// a session continues behind the parallel part
+		EnigmaSession session = enigma.newSession(7);
+		Assert.assertEquals(expected.substring(7, 20007), session.encrypt(plain.substring(7, 20007)));
+		Assert.assertEquals(20007, session.getCount());
+		Assert.assertEquals(expected.substring(20007, 20100), session.encrypt(plain.substring(20007, 20100)));
+	}
+
+	@Test
+	public void testCompiledMatchesRotors() {
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < 30; i++) {
+			builder.append(getText());
+		}
+		String plain = builder.toString();
+		int[][] starts = {STARTS, {3, 40, 7}, {-2, 25, 7}};
+		for(int[] start : starts) {
+			String expected = createEnigma(false, start).encrypt(plain);
+			EnigmaImpl enigma = createEnigma(false, start);
+			Assert.assertTrue(enigma.compile());
+			Assert.assertEquals(expected, enigma.encrypt(plain));
+			Assert.assertEquals(plain, enigma.decrypt(expected));
+			// the text goes on past the end of the period
+			EnigmaSession session = enigma.newSession(17000);
+			Assert.assertEquals(expected.substring(17000), session.encrypt(plain.substring(17000)));
+		}
+		// a rotor that never carries stops the period
+		EnigmaImpl stopped = createEnigma(false, new int[]{-1, 0, 0});
+		Assert.assertNull(stopped.getTable());
+		Assert.assertTrue(stopped.compile());
+		Assert.assertEquals(26, stopped.getTable().getPeriod());
+
+		// foreign rotors can't be compiled
+		Assert.assertFalse(createEnigma(true).compile());
+	}
+
+	@Test(expected = InvalidCharacterException.class)
+	public void testCompiledRejectsUnknownCharacters() {
+		EnigmaImpl enigma = createEnigma(false);
+		enigma.compile();
+		enigma.encrypt("abc1");
+	}
+
+	@Test
+	public void testStationaryRotorsWithManyRotors() {
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < 30; i++) {
+			builder.append(getText());
+		}
+		String plain = builder.toString();
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		// the second machine has a rotor with another order of the input alphabet, so it takes every rotor one by one
+		for(Alphabet thirdInput : new Alphabet[]{alphabet, new UtilsImpl().reverseAlphabet(alphabet)}) {
+			List<Rotor> rotors = new ArrayList<Rotor>();
+			List<Rotor> foreign = new ArrayList<Rotor>();
+			for(int i = 0; i < 5; i++) {
+				Alphabet in = i == 2 ? thirdInput : alphabet;
+				final RotorImpl rotor = new RotorImpl(in, TemplateTestUtils.getAlphabetFrom(ROTORS[i % ROTORS.length].toCharArray()), i);
+				rotors.add(rotor);
+				foreign.add(new Rotor() {
+					@Override
+					public char translate(char c, boolean forward) {
+						return rotor.translate(c, forward);
+					}
+
+					@Override
+					public boolean rotate() {
+						return rotor.rotate();
+					}
+
+					@Override
+					public void reset() {
+						rotor.reset();
+					}
+				});
+			}
+			PinBoardImpl pinBoard = new PinBoardImpl(alphabet, alphabet);
+			ReverseRotorImpl reverseRotor = new ReverseRotorImpl(alphabet, new UtilsImpl().reverseAlphabet(alphabet));
+			String expected = new EnigmaImpl(foreign, pinBoard, reverseRotor).encrypt(plain);
+			EnigmaImpl enigma = new EnigmaImpl(rotors, pinBoard, reverseRotor);
+			Assert.assertEquals(expected, enigma.encrypt(plain));
+			Assert.assertEquals(expected.substring(17000), enigma.newSession(17000).encrypt(plain.substring(17000)));
+		}
+	}
+
+	@Test
+	public void testUpdateInFrames() {
+		String plain = getText();
+		EnigmaImpl enigma = createEnigma(false);
+		String expected = enigma.encrypt(plain);
+		EnigmaSession session = enigma.newSession();
+		for(int round = 0; round < 2; round++) {
+			StringBuilder encrypted = new StringBuilder();
+			int start = 0;
+			for(int frame = 0; start < plain.length(); frame++) {
+				int end = Math.min(plain.length(), start + 1 + frame * 7);
+				String part = plain.substring(start, end);
+				switch(frame % 4) {
+					case 0:
+						encrypted.append(session.update(part.toCharArray()));
+						break;
+					case 1:
+						CharBuffer buffer = CharBuffer.wrap(part.toCharArray());
+						session.update(buffer);
+						Assert.assertFalse(buffer.hasRemaining());
+						encrypted.append(buffer.flip());
+						break;
+					case 2:
+						// a buffer without an array, in place
+						CharBuffer direct = ByteBuffer.allocateDirect(part.length() * 2).asCharBuffer();
+						direct.put(part).flip();
+						session.update(direct);
+						encrypted.append(direct.flip());
+						break;
+					default:
+						// buffers without an array
+						CharBuffer dst = ByteBuffer.allocateDirect(part.length() * 2).asCharBuffer();
+						session.update(CharBuffer.wrap(part), dst);
+						encrypted.append(dst.flip());
+				}
+				start = end;
+			}
+			Assert.assertEquals(expected, encrypted.toString());
+			// the next message starts from the beginning again
+			Assert.assertEquals(plain.length(), session.finish());
+		}
+	}
+
+	/**
+	 * the text used by the tests, only containing characters of the default alphabet
+	 */
+	private static String getText() {
+		return TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+	}
+
+	/**
+	 * creates an enigma with three rotors
+	 *
+	 * @param foreign true to hide the rotors behind another implementation of the interface
+	 */
+	static EnigmaImpl createEnigma(boolean foreign) {
+		return createEnigma(foreign, STARTS);
+	}
+
+	/**
+	 * creates an enigma with three rotors in the given start positions
+	 *
+	 * @param foreign true to hide the rotors behind another implementation of the interface
+	 * @param starts  the start positions of the rotors
+	 */
+	static EnigmaImpl createEnigma(boolean foreign, int[] starts) {
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+		List<Rotor> rotors = new ArrayList<Rotor>();
+		for(int i = 0; i < ROTORS.length; i++) {
+			final RotorImpl rotor = new RotorImpl(alphabet, TemplateTestUtils.getAlphabetFrom(ROTORS[i].toCharArray()), starts[i]);
+			if(foreign) {
+				rotors.add(new Rotor() {
+					@Override
+					public char translate(char c, boolean forward) {
+						return rotor.translate(c, forward);
+					}
+
+					@Override
+					public boolean rotate() {
+						return rotor.rotate();
+					}
+
+					@Override
+					public void reset() {
+						rotor.reset();
+					}
+				});
+			} else {
+				rotors.add(rotor);
+			}
+		}
+		Alphabet pins = TemplateTestUtils.getAlphabetFrom("bacdefghijklmnopqrstuvwxzy".toCharArray());
+		return new EnigmaImpl(rotors, new PinBoardImpl(alphabet, pins), new ReverseRotorImpl(alphabet, new UtilsImpl().reverseAlphabet(alphabet)));
+	}
+}
@@ -55,7 +55,20 @@ import org.junit.runners.Suite.SuiteClasses;
 
     /*our tests*/
 		CaesarCryptanalysisImplTest.class,
-		VigenereCryptanalysisImplTest.class
+		VigenereCryptanalysisImplTest.class,
+		UtilsImplTest.class,
+		MonoalphabeticKeySpaceTest.class,
+		MonoalphabeticCipherImplTest.class,
+		SubstitutionCipherImplTest.class,
+		CipherStreamTest.class,
+		MappedFileCipherTest.class,
+		PolyalphabeticCipherImplTest.class,
+		ByteTranslatorTest.class,
+		ComposedCipherImplTest.class,
+		CipherCacheTest.class,
+		EnigmaSessionTest.class,
+		EnigmaCryptanalysisImplTest.class,
+		EnigmaSearchSpoolTest.class
 })
 public class Main {
 
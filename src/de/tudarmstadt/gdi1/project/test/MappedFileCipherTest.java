@@ -0,0 +1,84 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.cipher.io.MappedFileCipher;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * tests for the memory mapped file encryption
+ */
+public class MappedFileCipherTest {
+	@Test
+	public void testChunksKeepPositions() throws Exception {
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet());
+
+		// build a text that is several chunks long, whose length isn't a multiple of the key length or the chunk size
+		String text = TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+		StringBuilder plain = new StringBuilder();
+		while(plain.length() < 20000) {
+			plain.append(text);
+		}
+		plain.append("abc");
+
+		File input = File.createTempFile("plain", ".txt");
+		File encrypted = File.createTempFile("encrypted", ".txt");
+		File decrypted = File.createTempFile("decrypted", ".txt");
+		try {
+			write(input, plain.toString());
+
+			MappedFileCipher fileCipher = new MappedFileCipher(cipher, 4096);
+			fileCipher.encrypt(input, encrypted);
+			Assert.assertEquals(cipher.encrypt(plain.toString()), read(encrypted));
+
+			fileCipher.decrypt(encrypted, decrypted);
+			Assert.assertEquals(plain.toString(), read(decrypted));
+		} finally {
+			input.delete();
+			encrypted.delete();
+			decrypted.delete();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSameFile() throws Exception {
+		File file = File.createTempFile("plain", ".txt");
+		try {
+			write(file, "abc");
+			// another path to the same file
+			File other = new File(new File(file.getParentFile(), "."), file.getName());
+			new MappedFileCipher(new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet())).encrypt(file, other);
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static void write(File file, String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes(Charset.forName("ISO-8859-1")));
+		} finally {
+			out.close();
+		}
+	}
+
+	private static String read(File file) throws IOException {
+		byte[] bytes = new byte[(int) file.length()];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			int read = 0;
+			while(read < bytes.length) {
+				read += in.read(bytes, read, bytes.length - read);
+			}
+		} finally {
+			in.close();
+		}
+		return new String(bytes, Charset.forName("ISO-8859-1"));
+	}
+}
@@ -0,0 +1,117 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.CaesarImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.MonoalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * tests for the compiled monoalphabetic cipher
+ */
+public class MonoalphabeticCipherImplTest {
+	@Test
+	public void testTranslateWithTables() {
+		Alphabet source = TemplateTestUtils.getDefaultAlphabet();
+		Alphabet target = TemplateTestUtils.getMixedDefaultAlphabet();
+		MonoalphabeticCipherImpl cipher = new MonoalphabeticCipherImpl(source, target);
+
+		for(int i = 0; i < source.size(); i++) {
+			Assert.assertEquals(target.getChar(i), cipher.translate(source.getChar(i), i));
+			Assert.assertEquals(source.getChar(i), cipher.reverseTranslate(target.getChar(i), i));
+		}
+	}
+
+	@Test(expected = InvalidCharacterException.class)
+	public void testUnmappedCharacter() {
+		MonoalphabeticCipherImpl cipher = new MonoalphabeticCipherImpl(TemplateTestUtils.getMinimalAlphabet(),
+				TemplateTestUtils.getReversedMinimalAlphabet());
+		cipher.encrypt("abz");
+	}
+
+	@Test
+	public void testOverriddenTranslateIsUsed() {
+		// a subclass that swaps a and b after the cipher
+		MonoalphabeticCipherImpl cipher = new MonoalphabeticCipherImpl(TemplateTestUtils.getDefaultAlphabet(), TemplateTestUtils.getDefaultAlphabet()) {
+			@Override
+			public char translate(char chr, int i) {
+				return swap(super.translate(chr, i));
+			}
+
+			@Override
+			public char reverseTranslate(char chr, int i) {
+				return super.reverseTranslate(swap(chr), i);
+			}
+		};
+		Assert.assertEquals("bacd", cipher.encrypt("abcd"));
+		Assert.assertEquals("abcd", cipher.decrypt("bacd"));
+	}
+
+	@Test
+	public void testOverriddenTranslateOfCaesar() {
+		// the shift kernel must not replace the method of a subclass either
+		CaesarImpl cipher = new CaesarImpl(1, TemplateTestUtils.getDefaultAlphabet()) {
+			@Override
+			public char translate(char chr, int i) {
+				return swap(super.translate(chr, i));
+			}
+
+			@Override
+			public char reverseTranslate(char chr, int i) {
+				return super.reverseTranslate(swap(chr), i);
+			}
+		};
+		Assert.assertEquals("cbde", cipher.encrypt("bzcd"));
+		Assert.assertEquals("bzcd", cipher.decrypt("cbde"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAlphabetsOfDifferentSize() {
+		new MonoalphabeticCipherImpl(TemplateTestUtils.getDefaultAlphabet(), TemplateTestUtils.getMinimalAlphabet());
+	}
+
+	@Test
+	public void testBulkApi() throws Exception {
+		Alphabet source = TemplateTestUtils.getDefaultAlphabet();
+		MonoalphabeticCipherImpl cipher = new MonoalphabeticCipherImpl(source, TemplateTestUtils.getMixedDefaultAlphabet());
+		String plain = "thequickbrownfoxjumpsoverthelazydog";
+		String encrypted = cipher.encrypt(plain);
+
+		// array to array with offsets
+		char[] dst = new char[plain.length() + 2];
+		cipher.encrypt(plain.toCharArray(), 0, plain.length(), dst, 2, 0);
+		Assert.assertEquals(encrypted, new String(dst, 2, plain.length()));
+
+		// in place
+		cipher.decrypt(dst, 2, plain.length(), 0);
+		Assert.assertEquals(plain, new String(dst, 2, plain.length()));
+
+		// CharSequence to Appendable
+		StringBuilder out = new StringBuilder();
+		cipher.encrypt(new StringBuilder(plain), out, 0);
+		Assert.assertEquals(encrypted, out.toString());
+	}
+
+	@Test
+	public void testCaesarShiftKernel() {
+		String plain = TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+		for(int key : new int[]{0, 3, 25, 30, -4}) {
+			CaesarImpl cipher = new CaesarImpl(key, TemplateTestUtils.getDefaultAlphabet());
+
+			// encrypt uses the kernel, translate the lookup table
+			String encrypted = cipher.encrypt(plain);
+			for(int i = 0; i < plain.length(); i++) {
+				Assert.assertEquals(cipher.translate(plain.charAt(i), i), encrypted.charAt(i));
+			}
+			Assert.assertEquals(plain, cipher.decrypt(encrypted));
+		}
+	}
+
+	/**
+	 * swaps a and b and keeps every other character
+	 */
+	private static char swap(char c) {
+		return c == 'a' ? 'b' : c == 'b' ? 'a' : c;
+	}
+}
@@ -0,0 +1,75 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.analysis.ValidateDecryptionOracle;
+import de.tudarmstadt.gdi1.project.analysis.monoalphabetic.MonoalphabeticKeySpace;
+import de.tudarmstadt.gdi1.project.analysis.monoalphabetic.MonoalphabeticKeySpaceSearch;
+import de.tudarmstadt.gdi1.project.cipher.substitution.monoalphabetic.MonoalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.utils.SharedForkJoinPool;
+import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * tests for the permutation ranking and the enumeration of monoalphabetic keys
+ */
+public class MonoalphabeticKeySpaceTest {
+	@Test
+	public void testRankUnrank() {
+		UtilsImpl utils = new UtilsImpl();
+		Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, utils.unrankPermutation(0, 4));
+		Assert.assertArrayEquals(new int[]{3, 2, 1, 0}, utils.unrankPermutation(23, 4));
+		for(long rank = 0; rank < 120; rank++) {
+			Assert.assertEquals(rank, utils.rankPermutation(utils.unrankPermutation(rank, 5)));
+		}
+	}
+
+	@Test
+	public void testSliceIteratesInRankOrder() {
+		Alphabet alphabet = TemplateTestUtils.getAlphabetFrom(new char[]{'a', 'b', 'c', 'd', 'e'});
+		Map<Character, Character> partialKey = new HashMap<Character, Character>();
+		partialKey.put('a', 'c');
+		MonoalphabeticKeySpace space = new MonoalphabeticKeySpace(alphabet, partialKey);
+
+		Assert.assertEquals(24, space.size());
+		Iterator<char[]> keys = space.slice(0, space.size()).iterator();
+		for(long rank = 0; rank < space.size(); rank++) {
+			char[] key = keys.next();
+			Assert.assertEquals('c', key[0]);
+			Assert.assertArrayEquals(space.keyAt(rank), key);
+			Assert.assertEquals(rank, space.rankOf(key));
+		}
+		Assert.assertFalse(keys.hasNext());
+
+		// the shards cover the key space without overlapping
+		long covered = 0;
+		for(int i = 0; i < 5; i++) {
+			MonoalphabeticKeySpace.Slice shard = space.shard(i, 5);
+			Assert.assertEquals(covered, shard.getFrom());
+			covered = shard.getTo();
+		}
+		Assert.assertEquals(space.size(), covered);
+	}
+
+	@Test
+	public void testParallelSearch() {
+		Alphabet alphabet = TemplateTestUtils.getAlphabetFrom(new char[]{'a', 'e', 'h', 'l', 'n', 'o', 's', 't'});
+		Alphabet key = TemplateTestUtils.getAlphabetFrom(new char[]{'s', 'n', 'a', 'e', 'o', 't', 'h', 'l'});
+		final String plaintext = "hallotheseasonsthatlast";
+		String ciphertext = new MonoalphabeticCipherImpl(alphabet, key).encrypt(plaintext);
+
+		MonoalphabeticKeySpace space = new MonoalphabeticKeySpace(alphabet);
+		char[] found = SharedForkJoinPool.get().invoke(new MonoalphabeticKeySpaceSearch(space.slice(0, space.size()), ciphertext,
+				new ValidateDecryptionOracle() {
+					@Override
+					public boolean isCorrect(String p) {
+						return plaintext.equals(p);
+					}
+				}));
+		Assert.assertArrayEquals(key.asCharArray(), found);
+	}
+}
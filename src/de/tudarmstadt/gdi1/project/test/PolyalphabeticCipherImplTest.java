@@ -0,0 +1,114 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.PolyalphabeticCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import de.tudarmstadt.gdi1.project.exception.InvalidCharacterException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * tests for the compiled polyalphabetic cipher
+ */
+public class PolyalphabeticCipherImplTest {
+	@Test
+	public void testTableauMatchesAlphabets() {
+		Alphabet plain = TemplateTestUtils.getDefaultAlphabet();
+		Alphabet[] cipherAlphabets = {TemplateTestUtils.getMixedDefaultAlphabet(), TemplateTestUtils.getReversedDefaultAlphabet()};
+		PolyalphabeticCipherImpl cipher = new PolyalphabeticCipherImpl(plain, cipherAlphabets);
+
+		for(int i = 0; i < plain.size() * 2; i++) {
+			Alphabet target = cipherAlphabets[i % 2];
+			char c = plain.getChar(i % plain.size());
+			Assert.assertEquals(target.getChar(plain.getIndex(c)), cipher.translate(c, i));
+			Assert.assertEquals(c, cipher.reverseTranslate(target.getChar(plain.getIndex(c)), i));
+		}
+	}
+
+	@Test
+	public void testBlockStartsInsidePeriod() {
+		VigenereImpl cipher = new VigenereImpl("lemon", TemplateTestUtils.getDefaultAlphabet());
+		Assert.assertEquals("lxfopvefrnhr", cipher.encrypt("attackatdawn"));
+
+		// encrypt the text starting in the middle of the key
+		char[] text = "tackatdawn".toCharArray();
+		cipher.encrypt(text, 0, text.length, 2);
+		Assert.assertEquals("fopvefrnhr", new String(text));
+		cipher.decrypt(text, 0, text.length, 2);
+		Assert.assertEquals("tackatdawn", new String(text));
+	}
+
+	@Test
+	public void testBulkApiKeepsPositions() throws Exception {
+		VigenereImpl cipher = new VigenereImpl("key", TemplateTestUtils.getDefaultAlphabet());
+		String plain = "thequickbrownfoxjumpsoverthelazydog";
+		String encrypted = cipher.encrypt(plain);
+
+		// encrypting the second half on its own gives the same result if the start position is passed along
+		char[] text = plain.toCharArray();
+		cipher.encrypt(text, 0, 10, 0);
+		cipher.encrypt(text, 10, text.length - 10, 10);
+		Assert.assertEquals(encrypted, new String(text));
+	}
+
+	@Test(expected = InvalidCharacterException.class)
+	public void testUnknownPlainCharacter() {
+		new VigenereImpl("key", TemplateTestUtils.getDefaultAlphabet()).translate('!', 0);
+	}
+
+	@Test(expected = InvalidCharacterException.class)
+	public void testUnknownCipherCharacter() {
+		new VigenereImpl("key", TemplateTestUtils.getDefaultAlphabet()).decrypt("ab!");
+	}
+
+	@Test
+	public void testOverriddenTranslateIsUsed() {
+		// a subclass that leaves every second character as it is
+		Alphabet plain = TemplateTestUtils.getDefaultAlphabet();
+		Alphabet[] cipherAlphabets = {TemplateTestUtils.getReversedDefaultAlphabet()};
+		PolyalphabeticCipherImpl cipher = new PolyalphabeticCipherImpl(plain, cipherAlphabets) {
+			@Override
+			public char translate(char chr, int i) {
+				return i % 2 == 0 ? super.translate(chr, i) : chr;
+			}
+
+			@Override
+			public char reverseTranslate(char chr, int i) {
+				return i % 2 == 0 ? super.reverseTranslate(chr, i) : chr;
+			}
+		};
+		Assert.assertEquals("zbxd", cipher.encrypt("abcd"));
+		Assert.assertEquals("abcd", cipher.decrypt("zbxd"));
+	}
+
+	@Test
+	public void testOverriddenTranslateOfVigenere() {
+		// the shift kernel must not replace the method of a subclass either
+		VigenereImpl cipher = new VigenereImpl("b", TemplateTestUtils.getDefaultAlphabet()) {
+			@Override
+			public char translate(char chr, int i) {
+				return i % 2 == 0 ? super.translate(chr, i) : chr;
+			}
+
+			@Override
+			public char reverseTranslate(char chr, int i) {
+				return i % 2 == 0 ? super.reverseTranslate(chr, i) : chr;
+			}
+		};
+		Assert.assertEquals("bbdd", cipher.encrypt("abcd"));
+		Assert.assertEquals("abcd", cipher.decrypt("bbdd"));
+	}
+
+	@Test
+	public void testShiftKernelMatchesTableau() {
+		VigenereImpl cipher = new VigenereImpl("kernel", TemplateTestUtils.getDefaultAlphabet());
+		String plain = TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+
+		// encrypt uses the kernel, translate the tableau
+		String encrypted = cipher.encrypt(plain);
+		for(int i = 0; i < plain.length(); i++) {
+			Assert.assertEquals(cipher.translate(plain.charAt(i), i), encrypted.charAt(i));
+		}
+		Assert.assertEquals(plain, cipher.decrypt(encrypted));
+	}
+}
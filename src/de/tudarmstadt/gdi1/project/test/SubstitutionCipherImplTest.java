@@ -0,0 +1,67 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.cipher.substitution.SubstitutionCipherImpl;
+import de.tudarmstadt.gdi1.project.cipher.substitution.polyalphabetic.VigenereImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * tests for the parallel translation of long texts in SubstitutionCipherImpl
+ */
+public class SubstitutionCipherImplTest {
+	@Test
+	public void testParallelMatchesSequential() throws Exception {
+		// a cipher that already splits texts of 1000 characters
+		VigenereImpl cipher = new VigenereImpl("secret", TemplateTestUtils.getDefaultAlphabet()) {
+			@Override
+			protected int getParallelThreshold() {
+				return 1000;
+			}
+		};
+		String plain = getText(200000);
+
+		// translate every character on its own for comparison
+		StringBuilder expected = new StringBuilder();
+		for(int i = 0; i < plain.length(); i++) {
+			expected.append(cipher.translate(plain.charAt(i), i));
+		}
+
+		String encrypted = cipher.encrypt(plain);
+		Assert.assertEquals(expected.toString(), encrypted);
+		Assert.assertEquals(plain, cipher.decrypt(encrypted));
+	}
+
+	@Test
+	public void testParallelIsOptIn() {
+		// a subclass that doesn't allow parallel translation is only called by the thread that encrypts
+		final Thread caller = Thread.currentThread();
+		SubstitutionCipherImpl cipher = new SubstitutionCipherImpl() {
+			@Override
+			public char translate(char chr, int i) {
+				Assert.assertSame(caller, Thread.currentThread());
+				return chr;
+			}
+
+			@Override
+			public char reverseTranslate(char chr, int i) {
+				Assert.assertSame(caller, Thread.currentThread());
+				return chr;
+			}
+		};
+		String plain = getText(SubstitutionCipherImpl.DEFAULT_PARALLEL_THRESHOLD * 2);
+		Assert.assertEquals(plain, cipher.encrypt(plain));
+		Assert.assertEquals(plain, cipher.decrypt(plain));
+	}
+
+	/**
+	 * the normalized test text repeated until it has at least the given length
+	 */
+	private static String getText(int length) {
+		String text = TemplateTestUtils.getDefaultAlphabet().normalize(TemplateTestUtils.ALICE_PLAIN);
+		StringBuilder ret = new StringBuilder();
+		while(ret.length() < length) {
+			ret.append(text);
+		}
+		return ret.toString();
+	}
+}
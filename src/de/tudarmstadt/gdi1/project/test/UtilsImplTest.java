@@ -0,0 +1,83 @@
+package de.tudarmstadt.gdi1.project.test;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.utils.AlphabetRotations;
+import de.tudarmstadt.gdi1.project.utils.UtilsImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Iterator;
+
+/**
+ * tests for the additions to UtilsImpl that aren't covered by the template tests
+ */
+public class UtilsImplTest {
+	@Test
+	public void testToDisplayStreaming() throws Exception {
+		UtilsImpl utils = new UtilsImpl();
+		StringWriter out = new StringWriter();
+		utils.toDisplay("abcdefghij", out, 3, 2);
+
+		String nl = System.lineSeparator();
+		Assert.assertEquals("abc def" + nl + "ghi j", out.toString());
+	}
+
+	@Test
+	public void testToDisplayEmptyAndExactBlocks() throws Exception {
+		UtilsImpl utils = new UtilsImpl();
+		Assert.assertEquals("", utils.toDisplay(""));
+		Assert.assertEquals("abcdefghij", utils.toDisplay("abcdefghij"));
+		Assert.assertEquals("abcdefghij klmnopqrst", utils.toDisplay("abcdefghijklmnopqrst"));
+	}
+
+	@Test
+	public void testRandomizeAlphabetSeeded() {
+		UtilsImpl utils = new UtilsImpl();
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+
+		Alphabet first = utils.randomizeAlphabet(alphabet, 42L);
+		Alphabet second = utils.randomizeAlphabet(alphabet, 42L);
+
+		Assert.assertEquals(first, second);
+		Assert.assertTrue(utils.containsSameCharacters(alphabet, first));
+	}
+
+	@Test
+	public void testShiftAlphabet() {
+		UtilsImpl utils = new UtilsImpl();
+		Alphabet alphabet = TemplateTestUtils.getDefaultAlphabet();
+
+		Alphabet shifted = utils.shiftAlphabet(alphabet, 3);
+		Assert.assertEquals('d', shifted.getChar(0));
+		Assert.assertEquals('c', shifted.getChar(25));
+		Assert.assertEquals('z', utils.reverseAlphabet(alphabet).getChar(0));
+
+		// alphabets with the same characters share their rotations, also for equivalent negative shifts
+		Assert.assertSame(shifted, utils.shiftAlphabet(new AlphabetImpl(new String(alphabet.asCharArray())), 3));
+		Assert.assertSame(shifted, utils.shiftAlphabet(alphabet, 3 - 26));
+		Assert.assertSame(AlphabetRotations.of(alphabet), AlphabetRotations.of(TemplateTestUtils.getDefaultAlphabet()));
+	}
+
+	@Test
+	public void testShiftedAlphabetCantBeChanged() {
+		Alphabet shifted = new UtilsImpl().shiftAlphabet(TemplateTestUtils.getDefaultAlphabet(), 3);
+		try {
+			((AlphabetImpl) shifted).asCharacterList().set(0, 'x');
+			Assert.fail();
+		} catch(UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			Iterator<Character> iterator = shifted.iterator();
+			iterator.next();
+			iterator.remove();
+			Assert.fail();
+		} catch(UnsupportedOperationException e) {
+			// expected
+		}
+		Assert.assertEquals('d', shifted.getChar(0));
+		Assert.assertEquals(26, shifted.size());
+	}
+}
@@ -0,0 +1,142 @@
+package de.tudarmstadt.gdi1.project.utils;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.alphabet.UnmodifiableAlphabet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds every rotation and the reverse of one alphabet, so shifting the alphabet is just an array lookup.
+ * Each rotation is created the first time it's requested and then reused. The returned alphabets are
+ * {@link UnmodifiableAlphabet}s, so they can be shared by all ciphers.
+ * <p/>
+ * {@link #of(Alphabet)} keeps the rotations of the most recently used alphabets, so ciphers that are created over and
+ * over again for the same alphabet, like the candidates of the caesar attack, find their shifted alphabet ready.
+ */
+public class AlphabetRotations {
+
+	/**
+	 * How many alphabets keep their rotations in the cache of {@link #of(Alphabet)}
+	 */
+	public static final int CACHE_SIZE = 64;
+
+	/**
+	 * the rotations of the most recently used alphabets, mapped by the characters of the alphabet. The least recently
+	 * used alphabet is removed when the cache is full.
+	 */
+	private static final Map<String, AlphabetRotations> CACHE = new LinkedHashMap<String, AlphabetRotations>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, AlphabetRotations> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * the characters of the alphabet written twice in a row, so every rotation is a continuous part of this array
+	 */
+	protected final char[] doubled;
+
+	/**
+	 * the number of characters in the alphabet
+	 */
+	protected final int size;
+
+	/**
+	 * the rotations that have been created so far. Position k holds the alphabet shifted by k positions to the left
+	 */
+	protected final AtomicReferenceArray<Alphabet> rotations;
+
+	/**
+	 * the reversed alphabet, or null if it hasn't been requested yet
+	 */
+	protected volatile Alphabet reversed;
+
+	/**
+	 * Creates the rotations for the given alphabet
+	 *
+	 * @param alphabet the alphabet that should be rotated
+	 */
+	public AlphabetRotations(Alphabet alphabet) {
+		char[] chars = alphabet.asCharArray();
+		size = chars.length;
+		doubled = new char[2 * size];
+		System.arraycopy(chars, 0, doubled, 0, size);
+		System.arraycopy(chars, 0, doubled, size, size);
+		rotations = new AtomicReferenceArray<Alphabet>(size);
+	}
+
+	/**
+	 * Returns the cached rotations of the given alphabet. Alphabets with the same characters in the same order share
+	 * one object.
+	 *
+	 * @param alphabet the alphabet
+	 * @return the rotations of the alphabet
+	 */
+	public static AlphabetRotations of(Alphabet alphabet) {
+		String key = new String(alphabet.asCharArray());
+		synchronized(CACHE) {
+			AlphabetRotations ret = CACHE.get(key);
+			if(ret == null) {
+				ret = new AlphabetRotations(alphabet);
+				CACHE.put(key, ret);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the alphabet shifted by the given amount of positions to the left. Negative shifts and shifts larger
+	 * than the alphabet are allowed.
+	 *
+	 * @param shift the number of positions to shift
+	 * @return the shifted alphabet
+	 */
+	public Alphabet getShifted(int shift) {
+		if(size == 0) {
+			return new UnmodifiableAlphabet("");
+		}
+		// bring the shift into the range of the alphabet
+		shift %= size;
+		if(shift < 0) {
+			shift += size;
+		}
+
+		Alphabet ret = rotations.get(shift);
+		if(ret == null) {
+			// the rotation by shift positions starts at position shift of the doubled characters
+			ret = new UnmodifiableAlphabet(new String(doubled, shift, size));
+			// in case another thread was faster, use its alphabet so everyone shares the same instance
+			if(!rotations.compareAndSet(shift, null, ret)) {
+				ret = rotations.get(shift);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the alphabet in reverse order
+	 *
+	 * @return the reversed alphabet
+	 */
+	public Alphabet getReversed() {
+		Alphabet ret = reversed;
+		if(ret == null) {
+			char[] chars = new char[size];
+			for(int i = 0; i < size; i++) {
+				chars[size - i - 1] = doubled[i];
+			}
+			ret = new UnmodifiableAlphabet(new String(chars));
+			reversed = ret;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the number of characters in the alphabet
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,91 @@
+package de.tudarmstadt.gdi1.project.utils;
+
+import java.util.Arrays;
+
+/**
+ * A lookup table from characters to int values (for example other characters or positions in an alphabet).
+ * The table only covers the range between the smallest and the largest mapped character, so looking up a character
+ * is a single array access. Characters that aren't mapped return {@link #UNMAPPED}.
+ * Tables never change after they have been created, so they can be shared between threads.
+ */
+public class CharTable {
+
+	/**
+	 * the value returned for characters that aren't mapped
+	 */
+	public static final int UNMAPPED = -1;
+
+	/**
+	 * the smallest character covered by the table
+	 */
+	protected final int low;
+
+	/**
+	 * the values of the characters low, low + 1, ... up to the largest mapped character
+	 */
+	protected final int[] values;
+
+	/**
+	 * Creates a table that maps every key to its position in the array. This is what
+	 * {@link de.tudarmstadt.gdi1.project.alphabet.Alphabet#getIndex(char)} does for the characters of an alphabet.
+	 *
+	 * @param keys the characters, every character may only appear once
+	 */
+	public CharTable(char[] keys) {
+		this(keys, null);
+	}
+
+	/**
+	 * Creates a table that maps keys[i] to values[i]
+	 *
+	 * @param keys   the characters, every character may only appear once
+	 * @param values the characters the keys are mapped to, or null to map every key to its position
+	 * @throws IllegalArgumentException if there are values, but not as many as keys
+	 */
+	public CharTable(char[] keys, char[] values) {
+		if(values != null && values.length != keys.length) {
+			throw new IllegalArgumentException("There are " + keys.length + " keys, but " + values.length + " values");
+		}
+		if(keys.length == 0) {
+			low = 0;
+			this.values = new int[0];
+			return;
+		}
+
+		// find the range of characters the table has to cover
+		int min = Character.MAX_VALUE;
+		int max = Character.MIN_VALUE;
+		for(char c : keys) {
+			min = Math.min(min, c);
+			max = Math.max(max, c);
+		}
+
+		low = min;
+		this.values = new int[max - min + 1];
+		Arrays.fill(this.values, UNMAPPED);
+		for(int i = 0; i < keys.length; i++) {
+			this.values[keys[i] - low] = (values == null) ? i : values[i];
+		}
+	}
+
+	/**
+	 * Looks up the value of a character
+	 *
+	 * @param c the character
+	 * @return the value of the character or {@link #UNMAPPED} if the character isn't mapped
+	 */
+	public int get(char c) {
+		int i = c - low;
+		return (i >= 0 && i < values.length) ? values[i] : UNMAPPED;
+	}
+
+	/**
+	 * Checks if the character is mapped to a value
+	 *
+	 * @param c the character
+	 * @return true if the character is mapped
+	 */
+	public boolean contains(char c) {
+		return get(c) != UNMAPPED;
+	}
+}
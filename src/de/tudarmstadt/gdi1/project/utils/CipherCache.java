@@ -0,0 +1,123 @@
+package de.tudarmstadt.gdi1.project.utils;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+import de.tudarmstadt.gdi1.project.cipher.Cipher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of cipher instances, mapped by the type of the cipher, its key and its alphabet. When the cache is
+ * full, the least recently used cipher is removed. The cache is thread safe, the cached ciphers are shared by everyone
+ * who asks for the same cipher.
+ */
+public class CipherCache {
+
+	/**
+	 * the cached ciphers, in the order they were last used
+	 */
+	private final LinkedHashMap<String, Cipher> ciphers;
+
+	/**
+	 * the number of ciphers that were found in the cache
+	 */
+	private long hits;
+
+	/**
+	 * the number of ciphers that weren't in the cache
+	 */
+	private long misses;
+
+	/**
+	 * Creates an empty cache
+	 *
+	 * @param maxSize the maximum number of ciphers in the cache
+	 */
+	public CipherCache(final int maxSize) {
+		if(maxSize < 1) {
+			throw new IllegalArgumentException("The cache has to hold at least one cipher");
+		}
+		this.ciphers = new LinkedHashMap<String, Cipher>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Cipher> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Looks up a cipher
+	 *
+	 * @param type     the type of the cipher, for example its class
+	 * @param key      the key of the cipher
+	 * @param alphabet the alphabet of the cipher
+	 * @return the cached cipher, or null if it isn't cached
+	 */
+	public synchronized Cipher get(Class<?> type, String key, Alphabet alphabet) {
+		Cipher ret = ciphers.get(toKey(type, key, alphabet));
+		if(ret == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return ret;
+	}
+
+	/**
+	 * Adds a cipher to the cache
+	 *
+	 * @param type     the type of the cipher, for example its class
+	 * @param key      the key of the cipher
+	 * @param alphabet the alphabet of the cipher
+	 * @param cipher   the cipher
+	 */
+	public synchronized void put(Class<?> type, String key, Alphabet alphabet, Cipher cipher) {
+		ciphers.put(toKey(type, key, alphabet), cipher);
+	}
+
+	/**
+	 * Builds the key of the map. The parts are separated by a character that isn't used anywhere else, with the key
+	 * length in front of the key, so different combinations never produce the same string.
+	 *
+	 * @param type     the type of the cipher
+	 * @param key      the key of the cipher
+	 * @param alphabet the alphabet of the cipher
+	 * @return the key of the map
+	 */
+	private static String toKey(Class<?> type, String key, Alphabet alphabet) {
+		StringBuilder ret = new StringBuilder();
+		ret.append(type.getName()).append('\0').append(key.length()).append('\0').append(key).append('\0');
+		ret.append(alphabet.asCharArray());
+		return ret.toString();
+	}
+
+	/**
+	 * @return the number of ciphers that were found in the cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of ciphers that weren't in the cache
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of ciphers in the cache
+	 */
+	public synchronized int size() {
+		return ciphers.size();
+	}
+
+	/**
+	 * Removes all ciphers and resets the counters
+	 */
+	public synchronized void clear() {
+		ciphers.clear();
+		hits = 0;
+		misses = 0;
+	}
+}
@@ -0,0 +1,33 @@
+package de.tudarmstadt.gdi1.project.utils;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds one fork/join pool for all parallel work of the project, so parallel operations don't start their own threads
+ * every time they're called. The pool has one thread per available processor and is only created when it's first used.
+ */
+public final class SharedForkJoinPool {
+
+	/**
+	 * not meant to be instantiated
+	 */
+	private SharedForkJoinPool() {
+	}
+
+	/**
+	 * @return the shared pool
+	 */
+	public static ForkJoinPool get() {
+		return Holder.POOL;
+	}
+
+	/**
+	 * lazily creates the pool when {@link #get()} is first called
+	 */
+	private static class Holder {
+		/**
+		 * the pool
+		 */
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+}
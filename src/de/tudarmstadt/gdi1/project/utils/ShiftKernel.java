@@ -0,0 +1,117 @@
+package de.tudarmstadt.gdi1.project.utils;
+
+import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
+
+/**
+ * Shift ciphers over a contiguous alphabet (like a-z, where every character is the previous one plus one) don't need
+ * any lookup: a character is encrypted by adding the shift to its code and wrapping around at the end of the alphabet.
+ * These loops only use arithmetic and no tables, so the JIT can keep everything in registers and unroll them.
+ */
+public final class ShiftKernel {
+
+	/**
+	 * returned by the shift methods if all characters were translated
+	 */
+	public static final int OK = -1;
+
+	/**
+	 * not meant to be instantiated
+	 */
+	private ShiftKernel() {
+	}
+
+	/**
+	 * Checks if the characters of the alphabet are consecutive code units in ascending order
+	 *
+	 * @param alphabet the alphabet
+	 * @return true if the alphabet is contiguous
+	 */
+	public static boolean isContiguous(Alphabet alphabet) {
+		if(alphabet.size() == 0) {
+			return false;
+		}
+		char first = alphabet.getChar(0);
+		for(int i = 1; i < alphabet.size(); i++) {
+			if(alphabet.getChar(i) != first + i) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Brings a shift into the range 0 to size - 1
+	 *
+	 * @param shift the shift, may be negative
+	 * @param size  the size of the alphabet
+	 * @return the normalized shift
+	 */
+	public static int normalize(int shift, int size) {
+		shift %= size;
+		return shift < 0 ? shift + size : shift;
+	}
+
+	/**
+	 * Shifts every character by the same amount
+	 *
+	 * @param src    the input
+	 * @param srcOff the position of the first character in src
+	 * @param len    the number of characters
+	 * @param dst    the output, may be src
+	 * @param dstOff the position of the first character in dst
+	 * @param base   the first character of the alphabet
+	 * @param size   the size of the alphabet
+	 * @param shift  the shift, between 0 and size - 1
+	 * @return {@link #OK}, or the index (relative to srcOff) of the first character that isn't in the alphabet
+	 */
+	public static int shift(char[] src, int srcOff, int len, char[] dst, int dstOff, char base, int size, int shift) {
+		// walk src directly and keep dst at a fixed distance, which gives the JIT the simplest loop
+		int distance = dstOff - srcOff;
+		int end = srcOff + len;
+		for(int i = srcOff; i < end; i++) {
+			// characters below the alphabet wrap around to huge values, so one comparison catches both sides
+			int c = (char) (src[i] - base);
+			if(c >= size) {
+				return i - srcOff;
+			}
+			// wrap around without a branch: subtract the size and add it back if the result went negative
+			c += shift - size;
+			c += size & (c >> 31);
+			dst[i + distance] = (char) (base + c);
+		}
+		return OK;
+	}
+
+	/**
+	 * Shifts the characters by a shift that changes with their position, like the vigenere cipher
+	 *
+	 * @param src      the input
+	 * @param srcOff   the position of the first character in src
+	 * @param len      the number of characters
+	 * @param dst      the output, may be src
+	 * @param dstOff   the position of the first character in dst
+	 * @param base     the first character of the alphabet
+	 * @param size     the size of the alphabet
+	 * @param shifts   the shifts for every position in the period, between 0 and size - 1
+	 * @param startPos the position of the first character in the whole text
+	 * @return {@link #OK}, or the index (relative to srcOff) of the first character that isn't in the alphabet
+	 */
+	public static int shift(char[] src, int srcOff, int len, char[] dst, int dstOff, char base, int size, int[] shifts, int startPos) {
+		int p = startPos % shifts.length;
+		int distance = dstOff - srcOff;
+		int end = srcOff + len;
+		for(int i = srcOff; i < end; i++) {
+			int c = (char) (src[i] - base);
+			if(c >= size) {
+				return i - srcOff;
+			}
+			c += shifts[p] - size;
+			c += size & (c >> 31);
+			dst[i + distance] = (char) (base + c);
+			if(++p == shifts.length) {
+				p = 0;
+			}
+		}
+		return OK;
+	}
+}
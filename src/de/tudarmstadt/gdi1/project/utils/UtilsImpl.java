@@ -2,17 +2,27 @@ package de.tudarmstadt.gdi1.project.utils;
 
 import de.tudarmstadt.gdi1.project.alphabet.Alphabet;
 import de.tudarmstadt.gdi1.project.alphabet.AlphabetImpl;
+import de.tudarmstadt.gdi1.project.exception.KeySpaceTooLargeException;
 
+import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * al kinds of utility functions
  */
 public class UtilsImpl implements Utils {
+	/**
+	 * Random generator used by {@link #randomizeAlphabet(Alphabet)}. Creating a new SecureRandom for every call is
+	 * slow and might block while the system gathers entropy, so all instances share this one. SecureRandom is thread
+	 * safe.
+	 */
+	private static final SecureRandom SHARED_RANDOM = new SecureRandom();
+
 	/**
 	 * transforms a text into a pretty printable format. This means that the
 	 * text has in every line 6 space separated blocks with 10 characters each.
@@ -43,30 +53,44 @@ public class UtilsImpl implements Utils {
 	 */
 	@Override
 	public String toDisplay(String ciphertext) {
-		ArrayList<String> retList = new ArrayList<String>();
-
-		//splitting up the text every 10th character
-		while(ciphertext.length() > 10) {
-			retList.add(ciphertext.substring(0, 10));
-			ciphertext = ciphertext.substring(10, ciphertext.length());
+		StringBuilder ret = new StringBuilder(ciphertext.length() + ciphertext.length() / 10 + 1);
+		try {
+			toDisplay(ciphertext, ret, 10, 6);
+		} catch(IOException e) {
+			// a StringBuilder never throws an IOException
+			throw new IllegalStateException(e);
 		}
-		retList.add(ciphertext);
+		return ret.toString();
+	}
 
+	/**
+	 * Writes the text in the pretty printable format of {@link #toDisplay(String)} directly to the given output,
+	 * without building any intermediate strings. Every block is blockSize characters long, the blocks are separated
+	 * by a single space and after blocksPerLine blocks a new line is started. The last block may be shorter and
+	 * isn't followed by a separator.
+	 *
+	 * @param text          the text that should be pretty formatted
+	 * @param out           the output the formatted text is appended to, for example a Writer or a StringBuilder
+	 * @param blockSize     the number of characters in every block
+	 * @param blocksPerLine the number of blocks in every line
+	 * @throws IOException if the output throws one
+	 */
+	public void toDisplay(CharSequence text, Appendable out, int blockSize, int blocksPerLine) throws IOException {
+		if(blockSize <= 0 || blocksPerLine <= 0) {
+			throw new IllegalArgumentException("block size and blocks per line have to be positive!");
+		}
+		String lineSeparator = System.lineSeparator();
 
-		//joining all those 10 character long Strings back together with " " and a System.lineSeparator() every 6th one
-		StringBuilder ret = new StringBuilder();
-		for(int i = 0; i < retList.size(); i++) {
-			ret.append(retList.get(i));
-			if((i + 1) % 6 == 0 && i < retList.size() - 1) {
-				ret.append(System.lineSeparator());
-			} else {
-				ret.append(" ");
+		// walk over the text once and write every block as soon as we reach it
+		int block = 0;
+		for(int start = 0; start < text.length() || start == 0; start += blockSize) {
+			// every block but the first one is separated from its predecessor by a space or a new line
+			if(block > 0) {
+				out.append(block % blocksPerLine == 0 ? lineSeparator : " ");
 			}
+			out.append(text, start, Math.min(start + blockSize, text.length()));
+			block++;
 		}
-		//deleting the last " "
-		ret.deleteCharAt(ret.length() - 1);
-
-		return ret.toString();
 	}
 
 	/**
@@ -106,27 +130,8 @@ public class UtilsImpl implements Utils {
 	 */
 	@Override
 	public Alphabet shiftAlphabet(Alphabet alphabet, int shift) {
-
-		// don't shift more than the alphabet is long
-		shift %= alphabet.size();
-		// in case the result was negative, bring it back to positives again by adding the size
-		if(shift < 0) {
-			shift += alphabet.size();
-		}
-
-		// get the alphabet as char array and shift it
-		char[] tempArray = alphabet.asCharArray();
-		Character[] destArray = new Character[tempArray.length];
-
-		// fills in the destArray from 0 to tempArray.length - shift with the right letters
-		for(int i = shift; i < tempArray.length; i++) {
-			destArray[i - shift] = tempArray[i];
-		}
-		// fills in the missing letters at the end ( from tempArray.length - shift to tempArray.length
-		for(int i = 0; i < shift; i++) {
-			destArray[tempArray.length - shift + i] = tempArray[i];
-		}
-		return new AlphabetImpl(destArray);
+		// the rotations are computed once per alphabet and then looked up, the shared alphabets can't be changed
+		return AlphabetRotations.of(alphabet).getShifted(shift);
 	}
 
 	/**
@@ -138,14 +143,7 @@ public class UtilsImpl implements Utils {
 	 */
 	@Override
 	public Alphabet reverseAlphabet(Alphabet alphabet) {
-		// reserve memory for the alphabet
-		char[] temp = alphabet.asCharArray();
-		Character[] ret = new Character[temp.length];
-		// reverse it
-		for(int i = 0; i < temp.length; i++) {
-			ret[ret.length - i - 1] = temp[i];
-		}
-		return new AlphabetImpl(ret);
+		return AlphabetRotations.of(alphabet).getReversed();
 	}
 
 	/**
@@ -183,23 +181,117 @@ public class UtilsImpl implements Utils {
 	 */
 	@Override
 	public Alphabet randomizeAlphabet(Alphabet alphabet) {
-		SecureRandom rand = new SecureRandom();
+		return randomizeAlphabet(alphabet, SHARED_RANDOM);
+	}
+
+	/**
+	 * Returns a new alphabet with the characters of the given one shuffled by a random generator created from the
+	 * given seed. The same seed always results in the same alphabet, so every worker of a parallel run can get its own
+	 * reproducible sequence of keys.
+	 *
+	 * @param alphabet the source alphabet
+	 * @param seed     the seed for the random generator
+	 * @return a new alphabet containing the same characters as the source alphabet but in a random order.
+	 */
+	public Alphabet randomizeAlphabet(Alphabet alphabet, long seed) {
+		return randomizeAlphabet(alphabet, new Random(seed));
+	}
 
-		//converting the chars in the Alphabet to an ArrayList
-		ArrayList<Character> chars = new ArrayList<Character>();
-		for(Character c : alphabet.asCharArray()) {
-			chars.add(c);
+	/**
+	 * Returns a new alphabet with the characters of the given one shuffled by the given random generator.
+	 * This uses an in-place Fisher-Yates shuffle, so every permutation is equally likely and it only takes linear time.
+	 *
+	 * @param alphabet the source alphabet
+	 * @param random   the random generator that decides the order
+	 * @return a new alphabet containing the same characters as the source alphabet but in a random order.
+	 */
+	public Alphabet randomizeAlphabet(Alphabet alphabet, Random random) {
+		char[] chars = alphabet.asCharArray();
+
+		// go backwards through the array and swap every character with one of the characters in front of it (or itself)
+		for(int i = chars.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			char tmp = chars[i];
+			chars[i] = chars[j];
+			chars[j] = tmp;
+		}
+
+		return new AlphabetImpl(toCharacterArray(chars));
+	}
+
+	/**
+	 * The largest n for which n! still fits into a long
+	 */
+	public static final int MAX_RANKABLE_SIZE = 20;
+
+	/**
+	 * Calculates n!
+	 *
+	 * @param n the number, at most {@link #MAX_RANKABLE_SIZE}
+	 * @return n!
+	 */
+	public long factorial(int n) {
+		if(n > MAX_RANKABLE_SIZE) {
+			throw new KeySpaceTooLargeException(n + "! doesn't fit into a long");
+		}
+		long ret = 1;
+		for(int i = 2; i <= n; i++) {
+			ret *= i;
 		}
+		return ret;
+	}
 
-		Character[] ret = new Character[alphabet.size()];
+	/**
+	 * Calculates the position of a permutation of 0, 1, ..., n-1 in the lexicographic order of all those permutations
+	 * (its rank). This is done by calculating its Lehmer code: for every position we count how many of the numbers
+	 * after it are smaller and use that as digit in the factorial number system.
+	 *
+	 * @param permutation a permutation of the numbers 0 to permutation.length - 1
+	 * @return the rank of the permutation, between 0 and permutation.length! - 1
+	 */
+	public long rankPermutation(int[] permutation) {
+		int n = permutation.length;
+		long rank = 0;
+		for(int i = 0; i < n; i++) {
+			// count the smaller numbers that come after position i
+			int smaller = 0;
+			for(int j = i + 1; j < n; j++) {
+				if(permutation[j] < permutation[i]) {
+					smaller++;
+				}
+			}
+			rank += smaller * factorial(n - 1 - i);
+		}
+		return rank;
+	}
 
-		//randomizing the alphabet using SecureRandom
-		for(int i = 0; i < ret.length; i++) {
-			ret[i] = chars.get(rand.nextInt(chars.size()));
-			chars.remove(ret[i]);
+	/**
+	 * Calculates the permutation of 0, 1, ..., n-1 that has the given position in the lexicographic order of all
+	 * those permutations. This is the inverse of {@link #rankPermutation(int[])}.
+	 *
+	 * @param rank the rank of the permutation, between 0 and n! - 1
+	 * @param n    the size of the permutation, at most {@link #MAX_RANKABLE_SIZE}
+	 * @return the permutation with the given rank
+	 */
+	public int[] unrankPermutation(long rank, int n) {
+		if(rank < 0 || rank >= factorial(n)) {
+			throw new IllegalArgumentException("the rank " + rank + " is out of range for permutations of size " + n);
+		}
+		// the numbers that haven't been used so far, in ascending order
+		ArrayList<Integer> unused = new ArrayList<Integer>(n);
+		for(int i = 0; i < n; i++) {
+			unused.add(i);
 		}
 
-		return new AlphabetImpl(ret);
+		// every digit of the rank in the factorial number system picks one of the unused numbers
+		int[] ret = new int[n];
+		for(int i = 0; i < n; i++) {
+			long f = factorial(n - 1 - i);
+			int digit = (int) (rank / f);
+			rank %= f;
+			ret[i] = unused.remove(digit);
+		}
+		return ret;
 	}
 
 	/**